@@ -0,0 +1,81 @@
+package carsharing.benchmark;
+
+import carsharing.migration.SchemaMigrator;
+import carsharing.service.DatabaseService;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Compares the old availability query (CAR LEFT JOIN CUSTOMER) with the indexed AVAILABLE column
+ * on an in-memory H2 database seeded with a large customer table.
+ * <p>
+ * Run with the task sources and the H2 driver on the classpath:
+ * <pre>
+ * java -cp out:h2.jar carsharing.benchmark.AvailabilityQueryBenchmark [customers] [companies]
+ * </pre>
+ * Defaults to 200,000 customers, 100 companies and one car per customer, a third of them rented.
+ */
+public class AvailabilityQueryBenchmark {
+    private static final String JOIN_QUERY = "SELECT * " +
+            "FROM CAR " +
+            "LEFT JOIN CUSTOMER " +
+            "ON CAR.id = CUSTOMER.rented_car_id " +
+            "WHERE CUSTOMER.name IS NULL AND CAR.company_id = ?";
+    private static final String INDEXED_QUERY = "SELECT ID, NAME, COMPANY_ID " +
+            "FROM CAR " +
+            "WHERE COMPANY_ID = ? AND AVAILABLE = TRUE " +
+            "ORDER BY ID";
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 100;
+
+    public static void main(String[] args) throws SQLException {
+        int customers = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int companies = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        try (DatabaseService databaseService = new DatabaseService("jdbc:h2:mem:availability;DB_CLOSE_DELAY=-1")) {
+            new SchemaMigrator(databaseService).migrate();
+            try (Connection connection = databaseService.getConnection()) {
+                BenchmarkData.seed(connection, customers, companies);
+                System.out.printf("Seeded %,d customers, %,d cars, %d companies%n", customers, customers, companies);
+
+                report("LEFT JOIN CUSTOMER", measure(connection, JOIN_QUERY, companies));
+                report("AVAILABLE index", measure(connection, INDEXED_QUERY, companies));
+            }
+        }
+    }
+
+    private static long[] measure(Connection connection, String sql, int companies) throws SQLException {
+        long[] samples = new long[MEASURED_ITERATIONS];
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+                statement.setInt(1, i % companies + 1);
+                long start = System.nanoTime();
+                int rows = 0;
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        rows++;
+                    }
+                }
+                long elapsed = System.nanoTime() - start;
+                if (i >= WARMUP_ITERATIONS) {
+                    samples[i - WARMUP_ITERATIONS] = elapsed;
+                }
+                if (rows == 0) {
+                    throw new IllegalStateException("Query returned no rows: " + sql);
+                }
+            }
+        }
+        return samples;
+    }
+
+    private static void report(String name, long[] samples) {
+        Arrays.sort(samples);
+        double average = Arrays.stream(samples).average().orElse(0) / 1_000;
+        System.out.printf("%-20s avg %10.1f us   p50 %10.1f us   p99 %10.1f us%n", name, average,
+                samples[samples.length / 2] / 1_000.0, samples[samples.length * 99 / 100] / 1_000.0);
+    }
+}
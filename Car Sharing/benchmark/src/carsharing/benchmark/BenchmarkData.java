@@ -0,0 +1,35 @@
+package carsharing.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Test data shared by the benchmarks: one car per customer spread over the companies,
+ * with every third car rented by the customer with the same ID.
+ */
+public final class BenchmarkData {
+    private static final int SEED_CHUNK = 10_000;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Seeds an empty database with INSERT ... SELECT from SYSTEM_RANGE in ranges of {@value #SEED_CHUNK} rows,
+     * since a single huge insert makes H2's MVStore slow down sharply. Names are "Company n", "Car n" and
+     * "Customer n", and IDs follow n.
+     */
+    public static void seed(Connection connection, int customers, int companies) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO COMPANY(NAME) SELECT 'Company ' || X FROM SYSTEM_RANGE(1, " + companies + ")");
+            for (int from = 1; from <= customers; from += SEED_CHUNK) {
+                String range = "SYSTEM_RANGE(" + from + ", " + Math.min(from + SEED_CHUNK - 1, customers) + ")";
+                statement.execute("INSERT INTO CAR(NAME, COMPANY_ID, AVAILABLE) " +
+                        "SELECT 'Car ' || X, MOD(X, " + companies + ") + 1, MOD(X, 3) <> 0 FROM " + range);
+                statement.execute("INSERT INTO CUSTOMER(NAME, RENTED_CAR_ID) " +
+                        "SELECT 'Customer ' || X, CASEWHEN(MOD(X, 3) = 0, X, NULL) FROM " + range);
+            }
+            statement.execute("ANALYZE");
+        }
+    }
+}
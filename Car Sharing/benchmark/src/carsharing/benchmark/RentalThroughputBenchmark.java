@@ -0,0 +1,133 @@
+package carsharing.benchmark;
+
+import carsharing.dao.CustomerDao;
+import carsharing.dao.RentalResult;
+import carsharing.daoimpl.CustomerDaoImpl;
+import carsharing.migration.SchemaMigrator;
+import carsharing.model.Car;
+import carsharing.model.Customer;
+import carsharing.pool.PoolConfig;
+import carsharing.service.DatabaseService;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures rent/return throughput of CustomerDaoImpl with 1 to 8 concurrent renters competing for the same cars.
+ * <p>
+ * Every renter has its own customers and repeatedly rents a random car and returns it again. Renters only
+ * contend on the car rows they pick, so throughput should grow with the number of renters, while the
+ * CAR_TAKEN count shows the conditional UPDATE turning away a renter that lost the race. After every run
+ * the database is checked for cars rented twice and for AVAILABLE flags that disagree with CUSTOMER.
+ * <pre>
+ * java -cp out:h2.jar carsharing.benchmark.RentalThroughputBenchmark [cars] [secondsPerRun]
+ * </pre>
+ */
+public class RentalThroughputBenchmark {
+    private static final int[] RENTER_COUNTS = {1, 2, 4, 8};
+    private static final int CUSTOMERS_PER_RENTER = 100;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        int cars = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int secondsPerRun = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        PoolConfig poolConfig = new PoolConfig();
+        poolConfig.setMaximumSize(RENTER_COUNTS[RENTER_COUNTS.length - 1]);
+
+        try (DatabaseService databaseService = new DatabaseService("jdbc:h2:mem:rental;DB_CLOSE_DELAY=-1", poolConfig)) {
+            new SchemaMigrator(databaseService).migrate();
+            try (Connection connection = databaseService.getConnection()) {
+                seed(connection, cars, RENTER_COUNTS[RENTER_COUNTS.length - 1] * CUSTOMERS_PER_RENTER);
+            }
+            System.out.printf("Seeded %,d cars, renters pick from all of them%n", cars);
+
+            CustomerDao customerDao = new CustomerDaoImpl(databaseService);
+            rentUntil(customerDao, 1, cars, System.nanoTime() + WARMUP_NANOS);
+            for (int renters : RENTER_COUNTS) {
+                run(databaseService, customerDao, renters, cars, secondsPerRun);
+            }
+        }
+    }
+
+    private static void run(DatabaseService databaseService, CustomerDao customerDao, int renters, int cars,
+                            int secondsPerRun) throws Exception {
+        long deadline = System.nanoTime() + secondsPerRun * 1_000_000_000L;
+        ExecutorService executor = Executors.newFixedThreadPool(renters);
+        List<Future<Map<RentalResult, Long>>> futures = new ArrayList<>();
+
+        for (int renter = 0; renter < renters; renter++) {
+            int firstCustomerId = renter * CUSTOMERS_PER_RENTER + 1;
+            futures.add(executor.submit(() -> rentUntil(customerDao, firstCustomerId, cars, deadline)));
+        }
+
+        Map<RentalResult, Long> totals = new EnumMap<>(RentalResult.class);
+        for (Future<Map<RentalResult, Long>> future : futures) {
+            future.get().forEach((result, count) -> totals.merge(result, count, Long::sum));
+        }
+        executor.shutdown();
+
+        long operations = totals.values().stream().mapToLong(Long::longValue).sum();
+        System.out.printf("%d renter(s): %,10.0f ops/s   %s   consistent=%b%n", renters,
+                (double) operations / secondsPerRun, totals, isConsistent(databaseService));
+    }
+
+    private static Map<RentalResult, Long> rentUntil(CustomerDao customerDao, int firstCustomerId, int cars, long deadline) {
+        Map<RentalResult, Long> counts = new EnumMap<>(RentalResult.class);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int next = 0;
+
+        while (System.nanoTime() < deadline) {
+            Customer customer = new Customer("Customer " + (firstCustomerId + next));
+            customer.setId(firstCustomerId + next);
+            next = (next + 1) % CUSTOMERS_PER_RENTER;
+
+            Car car = new Car("Car", 1);
+            car.setId(random.nextInt(cars) + 1);
+
+            RentalResult result = customerDao.rentCar(customer, car);
+            counts.merge(result, 1L, Long::sum);
+            if (result == RentalResult.RENTED) {
+                customer.setRentedCarId(car.getId());
+                counts.merge(customerDao.returnCar(customer), 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    private static void seed(Connection connection, int cars, int customers) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO COMPANY(NAME) VALUES('Company')");
+            statement.execute("INSERT INTO CAR(NAME, COMPANY_ID) SELECT 'Car ' || X, 1 FROM SYSTEM_RANGE(1, " + cars + ")");
+            statement.execute("INSERT INTO CUSTOMER(NAME) SELECT 'Customer ' || X FROM SYSTEM_RANGE(1, " + customers + ")");
+        }
+    }
+
+    private static boolean isConsistent(DatabaseService databaseService) throws SQLException {
+        String rentedTwice = "SELECT COUNT(*) FROM (SELECT RENTED_CAR_ID FROM CUSTOMER " +
+                "WHERE RENTED_CAR_ID IS NOT NULL GROUP BY RENTED_CAR_ID HAVING COUNT(*) > 1)";
+        String flagMismatch = "SELECT COUNT(*) FROM CAR LEFT JOIN CUSTOMER ON CAR.ID = CUSTOMER.RENTED_CAR_ID " +
+                "WHERE CAR.AVAILABLE = (CUSTOMER.ID IS NOT NULL)";
+        try (Connection connection = databaseService.getConnection();
+             Statement statement = connection.createStatement()) {
+            return count(statement, rentedTwice) == 0 && count(statement, flagMismatch) == 0;
+        }
+    }
+
+    private static long count(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
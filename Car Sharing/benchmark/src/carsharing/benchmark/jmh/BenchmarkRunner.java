@@ -0,0 +1,30 @@
+package carsharing.benchmark.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH suite with the GC profiler, so every result also reports the allocation rate
+ * (gc.alloc.rate and gc.alloc.rate.norm, the bytes allocated per operation).
+ * <p>
+ * Compile the benchmark sources together with the task sources, with jmh-core on the classpath and
+ * jmh-generator-annprocess as annotation processor, then run this class with the same classpath.
+ * Any JMH command line option is passed on, e.g. to run only the smallest database:
+ * <pre>
+ * java -cp out:h2.jar:jmh-core.jar:jopt-simple.jar:commons-math3.jar carsharing.benchmark.jmh.BenchmarkRunner -p rows=1000
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(BenchmarkRunner.class.getPackageName() + ".*Benchmarks")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
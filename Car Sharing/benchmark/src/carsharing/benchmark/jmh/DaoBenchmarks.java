@@ -0,0 +1,99 @@
+package carsharing.benchmark.jmh;
+
+import carsharing.daoimpl.CarDaoImpl;
+import carsharing.daoimpl.CompanyDaoImpl;
+import carsharing.daoimpl.CustomerDaoImpl;
+import carsharing.model.Car;
+import carsharing.model.Company;
+import carsharing.model.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The DAO impls straight against H2, without the caches and the availability index in front of them.
+ * Every benchmark picks a random seeded row, so results do not depend on a single hot row.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoBenchmarks {
+
+    @State(Scope.Benchmark)
+    public static class Daos {
+        CarDaoImpl carDao;
+        CompanyDaoImpl companyDao;
+        CustomerDaoImpl customerDao;
+        int rows;
+        int companies;
+        final AtomicLong addedCars = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void setUp(SeededDatabase database) {
+            carDao = new CarDaoImpl(database.databaseService);
+            companyDao = new CompanyDaoImpl(database.databaseService);
+            customerDao = new CustomerDaoImpl(database.databaseService);
+            rows = database.rows;
+            companies = database.companies;
+        }
+    }
+
+    @Benchmark
+    public List<Car> getAvailableCarList(Daos daos) {
+        Company company = new Company("Company");
+        company.setId(ThreadLocalRandom.current().nextInt(daos.companies) + 1);
+        return daos.carDao.getAvailableCarList(company);
+    }
+
+    /**
+     * Every call inserts a new car, so the CAR table grows by the number of operations of the trial.
+     */
+    @Benchmark
+    public Optional<Car> addCar(Daos daos) {
+        int companyId = ThreadLocalRandom.current().nextInt(daos.companies) + 1;
+        return daos.carDao.addCar(new Car("Benchmark car " + daos.addedCars.incrementAndGet(), companyId));
+    }
+
+    @Benchmark
+    public boolean ifCarExists(Daos daos) {
+        int carId = ThreadLocalRandom.current().nextInt(daos.rows) + 1;
+        return daos.carDao.ifCarExists(new Car("Car " + carId, 0));
+    }
+
+    @Benchmark
+    public List<Customer> getCustomerList(Daos daos) {
+        return daos.customerDao.getCustomerList();
+    }
+
+    /**
+     * Writes back the seeded name, so the data stays the same for the other benchmarks.
+     */
+    @Benchmark
+    public boolean updateCustomer(Daos daos) {
+        int customerId = ThreadLocalRandom.current().nextInt(daos.rows) + 1;
+        Customer customer = new Customer("Customer " + customerId);
+        customer.setId(customerId);
+        return daos.customerDao.updateCustomer(customer);
+    }
+
+    @Benchmark
+    public Optional<Company> getCompany(Daos daos) {
+        return daos.companyDao.getCompany(ThreadLocalRandom.current().nextInt(daos.companies) + 1);
+    }
+}
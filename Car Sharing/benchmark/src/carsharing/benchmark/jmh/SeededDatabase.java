@@ -0,0 +1,49 @@
+package carsharing.benchmark.jmh;
+
+import carsharing.benchmark.BenchmarkData;
+import carsharing.migration.SchemaMigrator;
+import carsharing.service.DatabaseService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * In-memory H2 database seeded once per trial with the given number of customers and cars,
+ * 100 cars to a company so the per-company lists stay the same size as the tables grow.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+    private static final int CARS_PER_COMPANY = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    DatabaseService databaseService;
+    int companies;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        companies = Math.max(1, rows / CARS_PER_COMPANY);
+        databaseService = new DatabaseService("jdbc:h2:mem:jmh" + rows + ";DB_CLOSE_DELAY=-1");
+        new SchemaMigrator(databaseService).migrate();
+        try (Connection connection = databaseService.getConnection()) {
+            BenchmarkData.seed(connection, rows, companies);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Connection connection = databaseService.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        databaseService.close();
+    }
+}
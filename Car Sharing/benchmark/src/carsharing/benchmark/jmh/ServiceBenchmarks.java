@@ -0,0 +1,91 @@
+package carsharing.benchmark.jmh;
+
+import carsharing.cache.EntityCache;
+import carsharing.dao.Page;
+import carsharing.daoimpl.CarDaoImpl;
+import carsharing.daoimpl.CustomerDaoImpl;
+import carsharing.daoimpl.RentalHistoryDaoImpl;
+import carsharing.history.RentalHistoryWriter;
+import carsharing.index.AvailabilityIndex;
+import carsharing.model.Car;
+import carsharing.model.Company;
+import carsharing.model.Customer;
+import carsharing.service.CarService;
+import carsharing.service.CompanyService;
+import carsharing.service.CustomerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The paths the console menus take: car lists from the availability index, company lookups through
+ * the entity cache and one keyset page of customers.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmarks {
+    private static final int PAGE_SIZE = 20;
+
+    @State(Scope.Benchmark)
+    public static class Services {
+        CarService carService;
+        CompanyService companyService;
+        CustomerService customerService;
+        RentalHistoryWriter rentalHistoryWriter;
+        int rows;
+        int companies;
+
+        @Setup(Level.Trial)
+        public void setUp(SeededDatabase database) {
+            // both services must see the same index, as DatabaseManager wires them
+            AvailabilityIndex availabilityIndex = AvailabilityIndex.build(
+                    new CarDaoImpl(database.databaseService), new CustomerDaoImpl(database.databaseService));
+            carService = new CarService(database.databaseService, EntityCache.DEFAULT_MAXIMUM_SIZE, availabilityIndex);
+            companyService = new CompanyService(database.databaseService);
+            rentalHistoryWriter = new RentalHistoryWriter(new RentalHistoryDaoImpl(database.databaseService));
+            customerService = new CustomerService(database.databaseService, EntityCache.DEFAULT_MAXIMUM_SIZE,
+                    availabilityIndex, rentalHistoryWriter);
+            rows = database.rows;
+            companies = database.companies;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            rentalHistoryWriter.close();
+        }
+    }
+
+    @Benchmark
+    public List<Car> getCarList(Services services) {
+        Company company = new Company("Company");
+        company.setId(ThreadLocalRandom.current().nextInt(services.companies) + 1);
+        return services.carService.getCarList(company);
+    }
+
+    @Benchmark
+    public Company getCompany(Services services) {
+        return services.companyService.getCompany(ThreadLocalRandom.current().nextInt(services.companies) + 1);
+    }
+
+    @Benchmark
+    public Page<Customer> getCustomerPage(Services services) {
+        int afterId = ThreadLocalRandom.current().nextInt(Math.max(1, services.rows - PAGE_SIZE));
+        return services.customerService.getCustomerPage(afterId, PAGE_SIZE);
+    }
+}
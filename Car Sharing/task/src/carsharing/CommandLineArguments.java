@@ -5,7 +5,22 @@ package carsharing;
  */
 
 public enum CommandLineArguments {
-    DATABASE_NAME("-databaseFileName");
+    DATABASE_NAME("-databaseFileName"),
+    POOL_MIN_SIZE("-poolMinSize"),
+    POOL_MAX_SIZE("-poolMaxSize"),
+    PAGE_SIZE("-pageSize"),
+    CACHE_SIZE("-cacheSize"),
+    LOAD_CUSTOMERS("-customers"),
+    LOAD_DURATION_SECONDS("-durationSeconds"),
+    LOAD_MIX("-mix"),
+    LOAD_THINK_MILLIS("-thinkMillis"),
+    HTTP_PORT("-httpPort"),
+    SCRIPT("-script"),
+    OUTPUT_FORMAT("-outputFormat"),
+    SLOW_QUERY_MILLIS("-slowQueryMillis"),
+    EXPLAIN_SLOW_QUERIES("-explainSlowQueries"),
+    STARTUP_TIMING("-startupTiming"),
+    WARM_START_FILE("-warmStartFile");
     private final String commandName;
 
     CommandLineArguments(String commandName) {
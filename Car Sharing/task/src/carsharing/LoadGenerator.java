@@ -0,0 +1,280 @@
+package carsharing;
+
+import carsharing.concurrent.ThreadSupport;
+import carsharing.dao.Page;
+import carsharing.dao.RentalResult;
+import carsharing.manager.DatabaseManager;
+import carsharing.metrics.LatencyHistogram;
+import carsharing.model.Car;
+import carsharing.model.Company;
+import carsharing.model.Customer;
+import carsharing.service.CarService;
+import carsharing.service.CompanyService;
+import carsharing.service.CustomerService;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Headless load generator. Simulated customers log in, browse, rent, return and check their rental by
+ * calling the services directly, one thread each, and the latency of every operation is recorded.
+ * <pre>
+ * java -cp out:h2.jar carsharing.LoadGenerator -databaseFileName load -customers 200 -durationSeconds 30
+ *      -mix login=20,list=35,rent=15,return=15,status=15 -thinkMillis 0 -poolMaxSize 16
+ * </pre>
+ * The load companies, cars and customers are created on the first run and reused afterwards.
+ * Rents and returns swap places in the mix depending on whether the customer is renting, so a
+ * customer never tries to rent twice. Cars still rented when the run ends are returned.
+ */
+public class LoadGenerator {
+    private static final String DEFAULT_MIX = "login=20,list=35,rent=15,return=15,status=15";
+    private static final int DEFAULT_CUSTOMERS = 100;
+    private static final int DEFAULT_DURATION_SECONDS = 10;
+    private static final int CUSTOMERS_PER_COMPANY = 10;
+    private static final int CARS_PER_COMPANY = 20;
+    private static final int LIST_PAGE_SIZE = 20;
+    private static final String COMPANY_PREFIX = "Load company ";
+    private static final String CUSTOMER_PREFIX = "Load customer ";
+
+    enum Operation {
+        LOGIN, LIST, RENT, RETURN, STATUS
+    }
+
+    private final CompanyService companyService;
+    private final CarService carService;
+    private final CustomerService customerService;
+    private final int[] mix;
+    private final int mixTotal;
+    private final long thinkMillis;
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Map<RentalResult, LongAdder> rentalResults = new ConcurrentHashMap<>();
+    private List<Company> companies;
+
+    /**
+     * @param databaseManager Supplies the services the simulated customers call.
+     * @param mix             Comma separated weights per operation, e.g. login=20,list=35,rent=15,return=15,status=15.
+     *                        Operations that are left out are never run.
+     * @param thinkMillis     Pause of every simulated customer between two operations.
+     */
+    public LoadGenerator(DatabaseManager databaseManager, String mix, long thinkMillis) {
+        this.companyService = databaseManager.getCompanyService();
+        this.carService = databaseManager.getCarService();
+        this.customerService = databaseManager.getCustomerService();
+        this.mix = parseMix(mix);
+        this.mixTotal = IntStream.of(this.mix).sum();
+        this.thinkMillis = thinkMillis;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String databaseName = Main.getArgument(args, CommandLineArguments.DATABASE_NAME);
+        int customers = getInt(args, CommandLineArguments.LOAD_CUSTOMERS, DEFAULT_CUSTOMERS);
+        int durationSeconds = getInt(args, CommandLineArguments.LOAD_DURATION_SECONDS, DEFAULT_DURATION_SECONDS);
+        int thinkMillis = getInt(args, CommandLineArguments.LOAD_THINK_MILLIS, 0);
+        String mix = Main.getArgument(args, CommandLineArguments.LOAD_MIX);
+
+        try (DatabaseManager databaseManager = new DatabaseManager(databaseName, Main.getPoolConfig(args))) {
+            LoadGenerator loadGenerator = new LoadGenerator(databaseManager, mix == null ? DEFAULT_MIX : mix, thinkMillis);
+            List<Customer> loadCustomers = loadGenerator.seed(customers);
+            System.out.printf("Running %d customers on %s threads for %d s%n", loadCustomers.size(),
+                    ThreadSupport.hasVirtualThreads() ? "virtual" : "platform", durationSeconds);
+
+            long start = System.nanoTime();
+            loadGenerator.run(loadCustomers, start + TimeUnit.SECONDS.toNanos(durationSeconds));
+            loadGenerator.printReport(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @param customers Number of simulated customers.
+     * @return Creates the load companies, their cars and the load customers unless they already exist,
+     * and returns the load customers as they are in the database.
+     */
+    List<Customer> seed(int customers) {
+        int companyCount = Math.max(1, (customers + CUSTOMERS_PER_COMPANY - 1) / CUSTOMERS_PER_COMPANY);
+        companyService.createCompanies(IntStream.rangeClosed(1, companyCount)
+                .mapToObj(number -> COMPANY_PREFIX + number)
+                .collect(Collectors.toList()));
+        companies = companyService.getCompanyList().stream()
+                .filter(company -> company.getName().startsWith(COMPANY_PREFIX))
+                .collect(Collectors.toList());
+        for (Company company : companies) {
+            carService.createCars(company, IntStream.rangeClosed(1, CARS_PER_COMPANY)
+                    .mapToObj(number -> "Load car " + company.getId() + "-" + number)
+                    .collect(Collectors.toList()));
+        }
+
+        customerService.createCustomers(IntStream.rangeClosed(1, customers)
+                .mapToObj(number -> CUSTOMER_PREFIX + number)
+                .collect(Collectors.toList()));
+        return customerService.returnCustomerList().stream()
+                .filter(customer -> customer.getName().startsWith(CUSTOMER_PREFIX))
+                .limit(customers)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param customers Simulated customers, one thread each.
+     * @param deadline  System.nanoTime() at which every customer stops.
+     */
+    void run(List<Customer> customers, long deadline) throws InterruptedException {
+        ExecutorService executor = ThreadSupport.newThreadPerTaskExecutor("load-customer");
+        List<Future<?>> futures = new ArrayList<>();
+        for (Customer customer : customers) {
+            futures.add(executor.submit(() -> simulate(customer, deadline)));
+        }
+        executor.shutdown();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void simulate(Customer customer, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            Operation operation = nextOperation(random.nextInt(mixTotal), customer);
+            long start = System.nanoTime();
+            try {
+                perform(operation, customer, random);
+            } catch (RuntimeException e) {
+                errors.get(operation).increment();
+            }
+            latencies.get(operation).record(System.nanoTime() - start);
+
+            if (thinkMillis > 0) {
+                try {
+                    Thread.sleep(thinkMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        if (customerService.isValidRentedCarId(customer)) {
+            customerService.returnCustomerCar(customer);
+        }
+    }
+
+    private Operation nextOperation(int roll, Customer customer) {
+        Operation operation = Operation.values()[Operation.values().length - 1];
+        for (Operation candidate : Operation.values()) {
+            roll -= mix[candidate.ordinal()];
+            if (roll < 0) {
+                operation = candidate;
+                break;
+            }
+        }
+        boolean renting = customerService.isValidRentedCarId(customer);
+        if (operation == Operation.RENT && renting && mix[Operation.RETURN.ordinal()] > 0) {
+            return Operation.RETURN;
+        }
+        if (operation == Operation.RETURN && !renting && mix[Operation.RENT.ordinal()] > 0) {
+            return Operation.RENT;
+        }
+        return operation;
+    }
+
+    private void perform(Operation operation, Customer customer, ThreadLocalRandom random) {
+        switch (operation) {
+            case LOGIN -> customerService.getCustomerPage(customer.getId() - 1, 1).getItems().stream()
+                    .findFirst()
+                    .ifPresent(loggedIn -> customer.setRentedCarId(loggedIn.getRentedCarId()));
+            case LIST -> {
+                Page<Company> companyPage = companyService.getCompanyPage(0, LIST_PAGE_SIZE);
+                if (!companyPage.isEmpty()) {
+                    List<Company> listed = companyPage.getItems();
+                    carService.getCarPage(listed.get(random.nextInt(listed.size())), 0, LIST_PAGE_SIZE);
+                }
+            }
+            case RENT -> {
+                if (!customerService.isValidRentedCarId(customer)) {
+                    Company company = companies.get(random.nextInt(companies.size()));
+                    List<Car> cars = carService.getCarPage(company, 0, LIST_PAGE_SIZE).getItems();
+                    if (!cars.isEmpty()) {
+                        count(customerService.rentCustomerCar(customer, cars.get(random.nextInt(cars.size()))));
+                    }
+                }
+            }
+            case RETURN -> {
+                if (customerService.isValidRentedCarId(customer)) {
+                    count(customerService.returnCustomerCar(customer));
+                }
+            }
+            case STATUS -> {
+                if (customerService.isValidRentedCarId(customer)) {
+                    Car car = carService.getCar(customer);
+                    companyService.getCompany(car.getCompanyId());
+                }
+            }
+        }
+    }
+
+    private void count(RentalResult result) {
+        rentalResults.computeIfAbsent(result, key -> new LongAdder()).increment();
+    }
+
+    void printReport(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long totalOperations = 0;
+        System.out.printf("%-8s %10s %10s %10s %10s %10s %10s %8s%n",
+                "op", "count", "ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            long count = histogram.getCount();
+            totalOperations += count;
+            System.out.printf("%-8s %10d %10.0f %10.3f %10.3f %10.3f %10.3f %8d%n",
+                    operation.name().toLowerCase(), count, count / seconds,
+                    toMillis(histogram.getValueAtPercentile(50)), toMillis(histogram.getValueAtPercentile(95)),
+                    toMillis(histogram.getValueAtPercentile(99)), toMillis(histogram.getMaxNanos()),
+                    errors.get(operation).sum());
+        }
+        System.out.printf("%-8s %10d %10.0f%n", "total", totalOperations, totalOperations / seconds);
+
+        Map<RentalResult, Long> results = new EnumMap<>(RentalResult.class);
+        rentalResults.forEach((result, count) -> results.put(result, count.sum()));
+        System.out.println("Rental results: " + results);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static int[] parseMix(String mix) {
+        int[] weights = new int[Operation.values().length];
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Mix entries look like name=weight: " + entry);
+            }
+            Operation operation = Operation.valueOf(parts[0].trim().toUpperCase());
+            weights[operation.ordinal()] = Integer.parseInt(parts[1].trim());
+        }
+        if (IntStream.of(weights).sum() <= 0) {
+            throw new IllegalArgumentException("Mix needs at least one operation with a positive weight");
+        }
+        return weights;
+    }
+
+    private static int getInt(String[] args, CommandLineArguments argument, int defaultValue) {
+        String value = Main.getArgument(args, argument);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
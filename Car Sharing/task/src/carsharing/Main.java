@@ -1,26 +1,100 @@
 package carsharing;
 
+import carsharing.http.HttpApiServer;
 import carsharing.manager.DatabaseManager;
+import carsharing.metrics.StartupTiming;
+import carsharing.pool.PoolConfig;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 public class Main {
-    public static void main(String[] args) {
-        String databaseName = getDatabaseNameFromArgs(args);
-        DatabaseManager databaseManager = new DatabaseManager(databaseName);
-        databaseManager.run();
+    public static void main(String[] args) throws IOException {
+        if (Boolean.parseBoolean(getArgument(args, CommandLineArguments.STARTUP_TIMING))) {
+            StartupTiming.enable();
+        }
+        String httpPort = getArgument(args, CommandLineArguments.HTTP_PORT);
+        String script = getArgument(args, CommandLineArguments.SCRIPT);
+        if (httpPort != null) {
+            serveHttp(createDatabaseManager(args), Integer.parseInt(httpPort));
+        } else if (script != null) {
+            boolean machineReadable = "tsv".equalsIgnoreCase(getArgument(args, CommandLineArguments.OUTPUT_FORMAT));
+            // the script is opened first, so a missing file fails before the Connection Pool is created
+            try (BufferedReader scriptReader = openScript(script)) {
+                createDatabaseManager(args).runScript(scriptReader, machineReadable);
+            }
+        } else {
+            createDatabaseManager(args).run();
+        }
+    }
+
+    /**
+     * @param args
+     * @return Creates the Database Manager from -databaseFileName, the pool settings, -cacheSize,
+     * -warmStartFile and -pageSize.
+     */
+    private static DatabaseManager createDatabaseManager(String[] args) {
+        String databaseName = getArgument(args, CommandLineArguments.DATABASE_NAME);
+        String cacheSize = getArgument(args, CommandLineArguments.CACHE_SIZE);
+        DatabaseManager databaseManager = cacheSize == null
+                ? new DatabaseManager(databaseName, getPoolConfig(args))
+                : new DatabaseManager(databaseName, getPoolConfig(args), Integer.parseInt(cacheSize));
+        String warmStartFile = getArgument(args, CommandLineArguments.WARM_START_FILE);
+        if (warmStartFile != null) {
+            databaseManager.enableWarmStart(Path.of(warmStartFile));
+        }
+        String pageSize = getArgument(args, CommandLineArguments.PAGE_SIZE);
+        if (pageSize != null) {
+            databaseManager.setPageSize(Integer.parseInt(pageSize));
+        }
+        return databaseManager;
+    }
+
+    /**
+     * @param script Path of the script file, or - to read the script from standard input.
+     * @return
+     */
+    private static BufferedReader openScript(String script) throws IOException {
+        if (script.equals("-")) {
+            return new BufferedReader(new InputStreamReader(System.in));
+        }
+        return Files.newBufferedReader(Path.of(script));
+    }
+
+    /**
+     * @param databaseManager
+     * @param port
+     * Serves the HTTP API instead of the console menus until the JVM is stopped, then stops the server
+     * and closes the database the same way leaving the main menu does.
+     */
+    private static void serveHttp(DatabaseManager databaseManager, int port) throws IOException {
+        HttpApiServer httpApiServer = new HttpApiServer(port, databaseManager.getCompanyService(),
+                databaseManager.getCarService(), databaseManager.getCustomerService());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            httpApiServer.close();
+            databaseManager.close();
+        }, "http-shutdown"));
+        httpApiServer.start();
+        System.out.println("HTTP API listening on port " + httpApiServer.getPort());
+        StartupTiming.firstPrompt();
     }
 
     /**
      *
      * @param args
+     * @param argument
      * @return
-     * Command Line handler for program. If -databaseFileName is added, the next
-     * space divided string will be the argument for the database filename.
+     * Command Line handler for program. If the argument's command name is added, the next
+     * space divided string will be the value for that argument (e.g. -databaseFileName carsharing).
+     * Returns null if the argument is not given.
      */
-    private static String getDatabaseNameFromArgs(String[] args) {
+    static String getArgument(String[] args, CommandLineArguments argument) {
         List<String> arguments = List.of(args);
-        String commandName = CommandLineArguments.DATABASE_NAME.getCommandName();
+        String commandName = argument.getCommandName();
 
         if (arguments.contains(commandName)) {
             int index = arguments.indexOf(commandName) + 1;
@@ -30,4 +104,30 @@ public class Main {
         }
         return null;
     }
+
+    /**
+     * @param args
+     * @return Builds the Connection Pool settings from -poolMinSize, -poolMaxSize, -slowQueryMillis and
+     * -explainSlowQueries, keeping the defaults for any value that is not given.
+     */
+    static PoolConfig getPoolConfig(String[] args) {
+        PoolConfig poolConfig = new PoolConfig();
+        String minimumSize = getArgument(args, CommandLineArguments.POOL_MIN_SIZE);
+        String maximumSize = getArgument(args, CommandLineArguments.POOL_MAX_SIZE);
+
+        if (maximumSize != null) {
+            poolConfig.setMaximumSize(Integer.parseInt(maximumSize));
+        }
+        if (minimumSize != null) {
+            poolConfig.setMinimumSize(Integer.parseInt(minimumSize));
+        }
+
+        String slowQueryMillis = getArgument(args, CommandLineArguments.SLOW_QUERY_MILLIS);
+        if (slowQueryMillis != null) {
+            poolConfig.setSlowQueryThresholdMillis(Long.parseLong(slowQueryMillis));
+            poolConfig.setExplainSlowQueries(
+                    Boolean.parseBoolean(getArgument(args, CommandLineArguments.EXPLAIN_SLOW_QUERIES)));
+        }
+        return poolConfig;
+    }
 }
\ No newline at end of file
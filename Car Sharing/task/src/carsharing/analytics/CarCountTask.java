@@ -0,0 +1,63 @@
+package carsharing.analytics;
+
+import carsharing.dao.FleetReportDao;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the total and rented cars per company over a range of car IDs by splitting it in halves
+ * until a range is at most one chunk wide. Each chunk runs its own grouped query on its own connection,
+ * and the per-company counts of the halves are added together on the way back up.
+ * <p>
+ * The result maps a company ID to {total, rented}. It is null if the query of any chunk failed,
+ * so a report is never built from part of the table.
+ */
+public final class CarCountTask extends RecursiveTask<Map<Integer, int[]>> {
+    private static final long serialVersionUID = 1L;
+    private final FleetReportDao fleetReportDao;
+    private final int afterId;
+    private final int lastId;
+    private final int chunkSize;
+
+    /**
+     * @param fleetReportDao
+     * @param afterId   Cars with an ID greater than this are counted.
+     * @param lastId    Cars with an ID up to and including this are counted.
+     * @param chunkSize Width of the ID range counted by a single query.
+     */
+    public CarCountTask(FleetReportDao fleetReportDao, int afterId, int lastId, int chunkSize) {
+        this.fleetReportDao = fleetReportDao;
+        this.afterId = afterId;
+        this.lastId = lastId;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected Map<Integer, int[]> compute() {
+        if ((long) lastId - afterId <= chunkSize) {
+            Map<Integer, int[]> counts = new HashMap<>();
+            boolean ifSuccessful = fleetReportDao.countCarsByCompany(afterId, lastId,
+                    (companyId, totalCars, rentedCars) -> counts.put(companyId, new int[]{totalCars, rentedCars}));
+            return ifSuccessful ? counts : null;
+        }
+
+        int middleId = (int) (((long) afterId + lastId) >>> 1);
+        CarCountTask lower = new CarCountTask(fleetReportDao, afterId, middleId, chunkSize);
+        CarCountTask upper = new CarCountTask(fleetReportDao, middleId, lastId, chunkSize);
+        lower.fork();
+        Map<Integer, int[]> upperCounts = upper.compute();
+        Map<Integer, int[]> lowerCounts = lower.join();
+        if (lowerCounts == null || upperCounts == null) {
+            return null;
+        }
+
+        upperCounts.forEach((companyId, counts) -> lowerCounts.merge(companyId, counts, (left, right) -> {
+            left[0] += right[0];
+            left[1] += right[1];
+            return left;
+        }));
+        return lowerCounts;
+    }
+}
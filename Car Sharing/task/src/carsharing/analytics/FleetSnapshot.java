@@ -0,0 +1,279 @@
+package carsharing.analytics;
+
+import carsharing.dao.FleetSnapshotDao;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only columnar copy of the COMPANY, CAR and CUSTOMER tables for fleet-wide analysis.
+ * <p>
+ * Every table is a struct of arrays: int[] columns for IDs and company IDs, an int[] of codes into a
+ * shared {@link NameDictionary} for names, and a BitSet of rented cars by car row. Rows are kept in ID
+ * order, so a row is found by binary search and a scan runs over plain arrays in parallel. A snapshot
+ * never changes; {@link #refresh(FleetSnapshotDao)} returns a new one with the rows added since and the
+ * current rented state, leaving this one valid for readers that still use it. Rows deleted from the
+ * database are only dropped by loading a new snapshot.
+ */
+public final class FleetSnapshot {
+    private final NameDictionary names;
+
+    private final int companyCount;
+    private final int[] companyIds;
+    private final int[] companyNames;
+
+    private final int carCount;
+    private final int[] carIds;
+    private final int[] carCompanyIds;
+    private final int[] carNames;
+    private final BitSet rentedCars;
+
+    private final int customerCount;
+    private final int[] customerIds;
+    private final int[] customerNames;
+
+    private FleetSnapshot(Builder builder) {
+        names = builder.names;
+        companyCount = builder.companyCount;
+        companyIds = builder.companyIds;
+        companyNames = builder.companyNames;
+        carCount = builder.carCount;
+        carIds = builder.carIds;
+        carCompanyIds = builder.carCompanyIds;
+        carNames = builder.carNames;
+        rentedCars = builder.rentedCars;
+        customerCount = builder.customerCount;
+        customerIds = builder.customerIds;
+        customerNames = builder.customerNames;
+    }
+
+    /**
+     * @param fleetSnapshotDao
+     * @return Returns a snapshot of the three tables. If a read fails the error is reported and the
+     * snapshot holds the rows read before it.
+     */
+    public static FleetSnapshot load(FleetSnapshotDao fleetSnapshotDao) {
+        return new Builder(null).readNewRows(fleetSnapshotDao).build();
+    }
+
+    /**
+     * @param fleetSnapshotDao
+     * @return Returns a new snapshot with the rows added since this one was read and the current rented state.
+     * Only rows with a higher ID than the last one loaded are read, plus the IDs of the rented cars.
+     */
+    public FleetSnapshot refresh(FleetSnapshotDao fleetSnapshotDao) {
+        return new Builder(this).readNewRows(fleetSnapshotDao).build();
+    }
+
+    public int getCompanyCount() {
+        return companyCount;
+    }
+
+    public int getCarCount() {
+        return carCount;
+    }
+
+    public int getCustomerCount() {
+        return customerCount;
+    }
+
+    public int getRentedCarCount() {
+        return rentedCars.cardinality();
+    }
+
+    /**
+     * @return Returns the share of all cars that is rented, between 0 and 1.
+     */
+    public double getRentedRatio() {
+        return carCount == 0 ? 0 : (double) getRentedCarCount() / carCount;
+    }
+
+    /**
+     * @return Returns the number of cars of every company, in company ID order. Companies without cars count 0.
+     */
+    public Map<Integer, Integer> getCarsPerCompany() {
+        return perCompany(countPerCompanyRow(false));
+    }
+
+    /**
+     * @return Returns the number of rented cars of every company, in company ID order.
+     */
+    public Map<Integer, Integer> getRentedCarsPerCompany() {
+        return perCompany(countPerCompanyRow(true));
+    }
+
+    public int countIdleCars() {
+        return carCount - getRentedCarCount();
+    }
+
+    /**
+     * @param companyId
+     * @return Returns the company's name, or null if the company is not in the snapshot.
+     */
+    public String getCompanyName(int companyId) {
+        int row = Arrays.binarySearch(companyIds, 0, companyCount, companyId);
+        return row < 0 ? null : names.decode(companyNames[row]);
+    }
+
+    /**
+     * @param carId
+     * @return Returns the car's name, or null if the car is not in the snapshot.
+     */
+    public String getCarName(int carId) {
+        int row = Arrays.binarySearch(carIds, 0, carCount, carId);
+        return row < 0 ? null : names.decode(carNames[row]);
+    }
+
+    /**
+     * @param customerId
+     * @return Returns the customer's name, or null if the customer is not in the snapshot.
+     */
+    public String getCustomerName(int customerId) {
+        int row = Arrays.binarySearch(customerIds, 0, customerCount, customerId);
+        return row < 0 ? null : names.decode(customerNames[row]);
+    }
+
+    /**
+     * @return Returns the approximate heap size of the columns and the name dictionary, in bytes.
+     */
+    public long getHeapBytes() {
+        long columns = 4L * (companyIds.length + companyNames.length + carIds.length + carCompanyIds.length
+                + carNames.length + customerIds.length + customerNames.length);
+        return columns + rentedCars.size() / 8 + names.getHeapBytes();
+    }
+
+    /*
+    Counts per company row in one parallel pass over the car columns. Each chunk of the scan
+    fills its own int[] and the arrays are added together at the end, so no counter is shared.
+     */
+    private int[] countPerCompanyRow(boolean rentedOnly) {
+        int[] companyRowById = companyRowById();
+        return IntStream.range(0, carCount)
+                .parallel()
+                .filter(row -> !rentedOnly || rentedCars.get(row))
+                .collect(() -> new int[companyCount], (counts, row) -> {
+                    int companyId = carCompanyIds[row];
+                    if (companyId < companyRowById.length && companyRowById[companyId] >= 0) {
+                        counts[companyRowById[companyId]]++;
+                    }
+                }, (left, right) -> {
+                    for (int i = 0; i < left.length; i++) {
+                        left[i] += right[i];
+                    }
+                });
+    }
+
+    private int[] companyRowById() {
+        int maxId = companyCount == 0 ? 0 : companyIds[companyCount - 1];
+        int[] rowById = new int[maxId + 1];
+        Arrays.fill(rowById, -1);
+        for (int row = 0; row < companyCount; row++) {
+            rowById[companyIds[row]] = row;
+        }
+        return rowById;
+    }
+
+    private Map<Integer, Integer> perCompany(int[] countsByRow) {
+        Map<Integer, Integer> counts = new LinkedHashMap<>();
+        for (int row = 0; row < companyCount; row++) {
+            counts.put(companyIds[row], countsByRow[row]);
+        }
+        return counts;
+    }
+
+    /**
+     * Copies the columns of the previous snapshot, appends the rows read after them and replaces the
+     * rented state. The previous snapshot's arrays are never written to.
+     */
+    private static final class Builder {
+        private final NameDictionary names;
+        private int companyCount;
+        private int[] companyIds;
+        private int[] companyNames;
+        private int carCount;
+        private int[] carIds;
+        private int[] carCompanyIds;
+        private int[] carNames;
+        private BitSet rentedCars;
+        private int customerCount;
+        private int[] customerIds;
+        private int[] customerNames;
+
+        private Builder(FleetSnapshot previous) {
+            if (previous == null) {
+                names = new NameDictionary();
+                companyIds = new int[16];
+                companyNames = new int[16];
+                carIds = new int[16];
+                carCompanyIds = new int[16];
+                carNames = new int[16];
+                customerIds = new int[16];
+                customerNames = new int[16];
+            } else {
+                names = previous.names.copy();
+                companyCount = previous.companyCount;
+                companyIds = previous.companyIds.clone();
+                companyNames = previous.companyNames.clone();
+                carCount = previous.carCount;
+                carIds = previous.carIds.clone();
+                carCompanyIds = previous.carCompanyIds.clone();
+                carNames = previous.carNames.clone();
+                customerCount = previous.customerCount;
+                customerIds = previous.customerIds.clone();
+                customerNames = previous.customerNames.clone();
+            }
+        }
+
+        private Builder readNewRows(FleetSnapshotDao fleetSnapshotDao) {
+            fleetSnapshotDao.readCompanies(lastId(companyIds, companyCount), (id, name) -> {
+                if (companyCount == companyIds.length) {
+                    companyIds = Arrays.copyOf(companyIds, companyCount * 2);
+                    companyNames = Arrays.copyOf(companyNames, companyCount * 2);
+                }
+                companyIds[companyCount] = id;
+                companyNames[companyCount] = names.encode(name);
+                companyCount++;
+            });
+            fleetSnapshotDao.readCars(lastId(carIds, carCount), (id, name, companyId) -> {
+                if (carCount == carIds.length) {
+                    carIds = Arrays.copyOf(carIds, carCount * 2);
+                    carCompanyIds = Arrays.copyOf(carCompanyIds, carCount * 2);
+                    carNames = Arrays.copyOf(carNames, carCount * 2);
+                }
+                carIds[carCount] = id;
+                carCompanyIds[carCount] = companyId;
+                carNames[carCount] = names.encode(name);
+                carCount++;
+            });
+            fleetSnapshotDao.readCustomers(lastId(customerIds, customerCount), (id, name) -> {
+                if (customerCount == customerIds.length) {
+                    customerIds = Arrays.copyOf(customerIds, customerCount * 2);
+                    customerNames = Arrays.copyOf(customerNames, customerCount * 2);
+                }
+                customerIds[customerCount] = id;
+                customerNames[customerCount] = names.encode(name);
+                customerCount++;
+            });
+
+            rentedCars = new BitSet(carCount);
+            fleetSnapshotDao.readRentedCarIds(carId -> {
+                int row = Arrays.binarySearch(carIds, 0, carCount, carId);
+                if (row >= 0) {
+                    rentedCars.set(row);
+                }
+            });
+            return this;
+        }
+
+        private static int lastId(int[] ids, int count) {
+            return count == 0 ? 0 : ids[count - 1];
+        }
+
+        private FleetSnapshot build() {
+            return new FleetSnapshot(this);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package carsharing.analytics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dictionary of names for the columnar snapshot. Every distinct name gets an int code and is stored
+ * once as UTF-8 in one shared byte array, so a name column is an int[] and holds no String objects.
+ * Codes are looked up through an open addressing table of codes keyed by the hash of the bytes.
+ * Not thread-safe; a snapshot only changes its copy while it is being built.
+ */
+final class NameDictionary {
+    private static final int EMPTY = -1;
+
+    private byte[] bytes;
+    private int byteCount;
+    private int[] offsets;
+    private int size;
+    private int[] table;
+
+    NameDictionary() {
+        bytes = new byte[1024];
+        offsets = new int[65];
+        table = new int[128];
+        Arrays.fill(table, EMPTY);
+    }
+
+    private NameDictionary(NameDictionary other) {
+        bytes = Arrays.copyOf(other.bytes, other.bytes.length);
+        byteCount = other.byteCount;
+        offsets = Arrays.copyOf(other.offsets, other.offsets.length);
+        size = other.size;
+        table = Arrays.copyOf(other.table, other.table.length);
+    }
+
+    NameDictionary copy() {
+        return new NameDictionary(this);
+    }
+
+    /**
+     * @param name
+     * @return Returns the code of the name, adding it to the dictionary the first time it is seen.
+     */
+    int encode(String name) {
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        int hash = Arrays.hashCode(encoded);
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        while (table[slot] != EMPTY) {
+            if (matches(table[slot], encoded)) {
+                return table[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int code = size;
+        append(encoded);
+        table[slot] = code;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return code;
+    }
+
+    String decode(int code) {
+        return new String(bytes, offsets[code], offsets[code + 1] - offsets[code], StandardCharsets.UTF_8);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getHeapBytes() {
+        return bytes.length + 4L * offsets.length + 4L * table.length;
+    }
+
+    private void append(byte[] encoded) {
+        if (byteCount + encoded.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, byteCount + encoded.length));
+        }
+        System.arraycopy(encoded, 0, bytes, byteCount, encoded.length);
+        byteCount += encoded.length;
+        if (size + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        size++;
+        offsets[size] = byteCount;
+    }
+
+    private boolean matches(int code, byte[] encoded) {
+        int start = offsets[code];
+        return Arrays.equals(bytes, start, offsets[code + 1], encoded, 0, encoded.length);
+    }
+
+    private void rehash() {
+        int[] newTable = new int[table.length * 2];
+        Arrays.fill(newTable, EMPTY);
+        int mask = newTable.length - 1;
+        for (int code = 0; code < size; code++) {
+            int hash = hashOf(code);
+            int slot = mix(hash) & mask;
+            while (newTable[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = code;
+        }
+        table = newTable;
+    }
+
+    private int hashOf(int code) {
+        int hash = 1;
+        for (int i = offsets[code]; i < offsets[code + 1]; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,58 @@
+package carsharing.async;
+
+import carsharing.concurrent.BoundedExecutor;
+import carsharing.dao.CarDao;
+import carsharing.dao.InsertOutcome;
+import carsharing.dao.Page;
+import carsharing.model.Car;
+import carsharing.model.Company;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link CarDao}. Every method runs the blocking one on the executor,
+ * so independent reads can be started together and combined once they complete.
+ */
+public class AsyncCarDao {
+    private final CarDao carDao;
+    private final BoundedExecutor executor;
+
+    public AsyncCarDao(CarDao carDao, BoundedExecutor executor) {
+        this.carDao = carDao;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Optional<Car>> addCarAsync(Car car) {
+        return executor.supply(() -> carDao.addCar(car));
+    }
+
+    public CompletableFuture<List<InsertOutcome>> addCarsAsync(List<Car> cars) {
+        return executor.supply(() -> carDao.addCars(cars));
+    }
+
+    public CompletableFuture<Boolean> ifCarExistsAsync(Car car) {
+        return executor.supply(() -> carDao.ifCarExists(car));
+    }
+
+    public CompletableFuture<List<Car>> getAllCarsAsync() {
+        return executor.supply(carDao::getAllCars);
+    }
+
+    public CompletableFuture<List<Car>> getAvailableCarListAsync(Company company) {
+        return executor.supply(() -> carDao.getAvailableCarList(company));
+    }
+
+    public CompletableFuture<Page<Car>> getAvailableCarPageAsync(Company company, int afterId, int pageSize) {
+        return executor.supply(() -> carDao.getAvailableCarPage(company, afterId, pageSize));
+    }
+
+    public CompletableFuture<Optional<Car>> getCarByIdAsync(int id) {
+        return executor.supply(() -> carDao.getCarById(id));
+    }
+
+    public CompletableFuture<Optional<Car>> getCarByNameAsync(String name) {
+        return executor.supply(() -> carDao.getCarByName(name));
+    }
+}
@@ -0,0 +1,60 @@
+package carsharing.async;
+
+import carsharing.concurrent.BoundedExecutor;
+import carsharing.dao.CompanyDao;
+import carsharing.dao.InsertOutcome;
+import carsharing.dao.Page;
+import carsharing.model.Company;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link CompanyDao}, see {@link AsyncCarDao}.
+ */
+public class AsyncCompanyDao {
+    private final CompanyDao companyDao;
+    private final BoundedExecutor executor;
+
+    public AsyncCompanyDao(CompanyDao companyDao, BoundedExecutor executor) {
+        this.companyDao = companyDao;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Optional<Company>> addCompanyAsync(Company company) {
+        return executor.supply(() -> companyDao.addCompany(company));
+    }
+
+    public CompletableFuture<List<InsertOutcome>> addCompaniesAsync(List<Company> companies) {
+        return executor.supply(() -> companyDao.addCompanies(companies));
+    }
+
+    public CompletableFuture<Boolean> ifCompanyExistsAsync(Company company) {
+        return executor.supply(() -> companyDao.ifCompanyExists(company));
+    }
+
+    public CompletableFuture<Optional<Company>> getCompanyAsync(int companyId) {
+        return executor.supply(() -> companyDao.getCompany(companyId));
+    }
+
+    public CompletableFuture<Optional<Company>> getCompanyByNameAsync(String name) {
+        return executor.supply(() -> companyDao.getCompanyByName(name));
+    }
+
+    public CompletableFuture<List<Company>> getAllCompaniesAsync() {
+        return executor.supply(companyDao::getAllCompanies);
+    }
+
+    public CompletableFuture<Page<Company>> getCompanyPageAsync(int afterId, int pageSize) {
+        return executor.supply(() -> companyDao.getCompanyPage(afterId, pageSize));
+    }
+
+    public CompletableFuture<Boolean> updateCompanyAsync(Company oldCompany, Company newCompany) {
+        return executor.supply(() -> companyDao.updateCompany(oldCompany, newCompany));
+    }
+
+    public CompletableFuture<Boolean> deleteCompanyAsync(Company company) {
+        return executor.supply(() -> companyDao.deleteCompany(company));
+    }
+}
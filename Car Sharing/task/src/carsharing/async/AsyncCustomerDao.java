@@ -0,0 +1,66 @@
+package carsharing.async;
+
+import carsharing.concurrent.BoundedExecutor;
+import carsharing.dao.CustomerDao;
+import carsharing.dao.InsertOutcome;
+import carsharing.dao.Page;
+import carsharing.dao.RentalResult;
+import carsharing.model.Car;
+import carsharing.model.Customer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link CustomerDao}, see {@link AsyncCarDao}.
+ */
+public class AsyncCustomerDao {
+    private final CustomerDao customerDao;
+    private final BoundedExecutor executor;
+
+    public AsyncCustomerDao(CustomerDao customerDao, BoundedExecutor executor) {
+        this.customerDao = customerDao;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Optional<Customer>> addCustomerAsync(Customer customer) {
+        return executor.supply(() -> customerDao.addCustomer(customer));
+    }
+
+    public CompletableFuture<List<InsertOutcome>> addCustomersAsync(List<Customer> customers) {
+        return executor.supply(() -> customerDao.addCustomers(customers));
+    }
+
+    public CompletableFuture<Boolean> ifCustomerExistsAsync(Customer customer) {
+        return executor.supply(() -> customerDao.ifCustomerExists(customer));
+    }
+
+    public CompletableFuture<Optional<Customer>> getCustomerByIdAsync(int id) {
+        return executor.supply(() -> customerDao.getCustomerById(id));
+    }
+
+    public CompletableFuture<Optional<Customer>> getCustomerByNameAsync(String name) {
+        return executor.supply(() -> customerDao.getCustomerByName(name));
+    }
+
+    public CompletableFuture<List<Customer>> getCustomerListAsync() {
+        return executor.supply(customerDao::getCustomerList);
+    }
+
+    public CompletableFuture<Page<Customer>> getCustomerPageAsync(int afterId, int pageSize) {
+        return executor.supply(() -> customerDao.getCustomerPage(afterId, pageSize));
+    }
+
+    public CompletableFuture<Boolean> updateCustomerAsync(Customer customer) {
+        return executor.supply(() -> customerDao.updateCustomer(customer));
+    }
+
+    public CompletableFuture<RentalResult> rentCarAsync(Customer customer, Car car) {
+        return executor.supply(() -> customerDao.rentCar(customer, car));
+    }
+
+    public CompletableFuture<RentalResult> returnCarAsync(Customer customer) {
+        return executor.supply(() -> customerDao.returnCar(customer));
+    }
+}
@@ -0,0 +1,65 @@
+package carsharing.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit, miss, eviction and load counters of the entity caches of one DAO.
+ * Both the by-ID and the by-name cache of a DAO record into the same instance.
+ */
+public class CacheStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    void recordLoad(long loadNanos) {
+        loads.increment();
+        totalLoadNanos.add(loadNanos);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public double getAverageLoadMillis() {
+        long loadCount = getLoads();
+        return loadCount == 0 ? 0 : totalLoadNanos.sum() / 1_000_000.0 / loadCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, evictions=%d, hitRatio=%.2f, avgLoad=%.3fms",
+                getHits(), getMisses(), getEvictions(), getHitRatio(), getAverageLoadMillis());
+    }
+}
@@ -0,0 +1,91 @@
+package carsharing.cache;
+
+import carsharing.dao.CarDao;
+import carsharing.dao.InsertOutcome;
+import carsharing.dao.Page;
+import carsharing.model.Car;
+import carsharing.model.Company;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Caches Car lookups by ID and by name in front of another CarDao.
+ * Availability is not part of Car, so renting and returning do not touch this cache;
+ * the available car lists and pages always go to the database.
+ */
+public class CachingCarDao implements CarDao {
+    private final CarDao carDao;
+    private final CacheStats stats = new CacheStats();
+    private final EntityCache<Integer, Car> carsById;
+    private final EntityCache<String, Car> carsByName;
+
+    public CachingCarDao(CarDao carDao, int maximumSize) {
+        this.carDao = carDao;
+        this.carsById = new EntityCache<>(maximumSize, stats);
+        this.carsByName = new EntityCache<>(maximumSize, stats);
+    }
+
+    @Override
+    public Optional<Car> addCar(Car car) {
+        carsByName.invalidate(car.getName());
+        return carDao.addCar(car);
+    }
+
+    @Override
+    public List<InsertOutcome> addCars(List<Car> cars, int chunkSize) {
+        cars.forEach(car -> carsByName.invalidate(car.getName()));
+        return carDao.addCars(cars, chunkSize);
+    }
+
+    @Override
+    public boolean ifCarExists(Car car) {
+        return carDao.ifCarExists(car);
+    }
+
+    @Override
+    public List<Car> getAllCars() {
+        return carDao.getAllCars();
+    }
+
+    @Override
+    public Stream<Car> streamAllCars(int fetchSize) {
+        return carDao.streamAllCars(fetchSize);
+    }
+
+    @Override
+    public Stream<Car> streamAvailableCars(Company company, int fetchSize) {
+        return carDao.streamAvailableCars(company, fetchSize);
+    }
+
+    @Override
+    public List<Car> getAvailableCarList(Company company) {
+        return carDao.getAvailableCarList(company);
+    }
+
+    @Override
+    public Page<Car> getAvailableCarPage(Company company, int afterId, int pageSize) {
+        return carDao.getAvailableCarPage(company, afterId, pageSize);
+    }
+
+    @Override
+    public Optional<Car> getCarById(int id) {
+        return carsById.get(id, carDao::getCarById).map(CachingCarDao::copy);
+    }
+
+    @Override
+    public Optional<Car> getCarByName(String name) {
+        return carsByName.get(name, carDao::getCarByName).map(CachingCarDao::copy);
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    private static Car copy(Car car) {
+        Car copy = new Car(car.getName(), car.getCompanyId());
+        copy.setId(car.getId());
+        return copy;
+    }
+}
@@ -0,0 +1,117 @@
+package carsharing.cache;
+
+import carsharing.dao.CompanyDao;
+import carsharing.dao.InsertOutcome;
+import carsharing.dao.Page;
+import carsharing.model.Company;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Caches Company lookups by ID and by name in front of another CompanyDao.
+ * Lists and pages always go to the database. Callers get their own copy of a cached Company,
+ * so changing it cannot change the cache.
+ */
+public class CachingCompanyDao implements CompanyDao {
+    private final CompanyDao companyDao;
+    private final CacheStats stats = new CacheStats();
+    private final EntityCache<Integer, Company> companiesById;
+    private final EntityCache<String, Company> companiesByName;
+
+    public CachingCompanyDao(CompanyDao companyDao, int maximumSize) {
+        this.companyDao = companyDao;
+        this.companiesById = new EntityCache<>(maximumSize, stats);
+        this.companiesByName = new EntityCache<>(maximumSize, stats);
+    }
+
+    @Override
+    public Optional<Company> addCompany(Company company) {
+        companiesByName.invalidate(company.getName());
+        return companyDao.addCompany(company);
+    }
+
+    @Override
+    public List<InsertOutcome> addCompanies(List<Company> companies, int chunkSize) {
+        companies.forEach(company -> companiesByName.invalidate(company.getName()));
+        return companyDao.addCompanies(companies, chunkSize);
+    }
+
+    @Override
+    public boolean ifCompanyExists(Company company) {
+        return companyDao.ifCompanyExists(company);
+    }
+
+    @Override
+    public Optional<Company> getCompany(int companyId) {
+        return companiesById.get(companyId, companyDao::getCompany).map(CachingCompanyDao::copy);
+    }
+
+    @Override
+    public Optional<Company> getCompanyByName(String name) {
+        return companiesByName.get(name, companyDao::getCompanyByName).map(CachingCompanyDao::copy);
+    }
+
+    @Override
+    public List<Company> getAllCompanies() {
+        return companyDao.getAllCompanies();
+    }
+
+    @Override
+    public Stream<Company> streamAllCompanies(int fetchSize) {
+        return companyDao.streamAllCompanies(fetchSize);
+    }
+
+    @Override
+    public Page<Company> getCompanyPage(int afterId, int pageSize) {
+        return companyDao.getCompanyPage(afterId, pageSize);
+    }
+
+    /**
+     * Companies are updated and deleted by name and the ID of the row is not known here,
+     * so both caches are cleared. Neither happens often enough for this to matter.
+     */
+    @Override
+    public boolean updateCompany(Company oldCompany, Company newCompany) {
+        try {
+            return companyDao.updateCompany(oldCompany, newCompany);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public boolean deleteCompany(Company company) {
+        try {
+            return companyDao.deleteCompany(company);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @param companies Cached by ID and by name up to the maximum size, without a query.
+     */
+    public void preload(List<Company> companies) {
+        for (Company company : companies) {
+            companiesById.preload(company.getId(), copy(company));
+            companiesByName.preload(company.getName(), copy(company));
+        }
+    }
+
+    public void invalidateAll() {
+        companiesById.invalidateAll();
+        companiesByName.invalidateAll();
+    }
+
+    private static Company copy(Company company) {
+        Company copy = new Company(company.getName());
+        copy.setId(company.getId());
+        return copy;
+    }
+}
@@ -0,0 +1,123 @@
+package carsharing.cache;
+
+import carsharing.dao.CustomerDao;
+import carsharing.dao.InsertOutcome;
+import carsharing.dao.Page;
+import carsharing.dao.RentalResult;
+import carsharing.model.Car;
+import carsharing.model.Customer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Caches Customer lookups by ID and by name in front of another CustomerDao.
+ * Every write to a customer, including renting and returning a car, removes it from both caches.
+ */
+public class CachingCustomerDao implements CustomerDao {
+    private final CustomerDao customerDao;
+    private final CacheStats stats = new CacheStats();
+    private final EntityCache<Integer, Customer> customersById;
+    private final EntityCache<String, Customer> customersByName;
+
+    public CachingCustomerDao(CustomerDao customerDao, int maximumSize) {
+        this.customerDao = customerDao;
+        this.customersById = new EntityCache<>(maximumSize, stats);
+        this.customersByName = new EntityCache<>(maximumSize, stats);
+    }
+
+    @Override
+    public Optional<Customer> addCustomer(Customer customer) {
+        customersByName.invalidate(customer.getName());
+        return customerDao.addCustomer(customer);
+    }
+
+    @Override
+    public List<InsertOutcome> addCustomers(List<Customer> customers, int chunkSize) {
+        customers.forEach(customer -> customersByName.invalidate(customer.getName()));
+        return customerDao.addCustomers(customers, chunkSize);
+    }
+
+    @Override
+    public boolean ifCustomerExists(Customer customer) {
+        return customerDao.ifCustomerExists(customer);
+    }
+
+    @Override
+    public Optional<Customer> getCustomerById(int id) {
+        return customersById.get(id, customerDao::getCustomerById).map(CachingCustomerDao::copy);
+    }
+
+    @Override
+    public Optional<Customer> getCustomerByName(String name) {
+        return customersByName.get(name, customerDao::getCustomerByName).map(CachingCustomerDao::copy);
+    }
+
+    @Override
+    public List<Customer> getCustomerList() {
+        return customerDao.getCustomerList();
+    }
+
+    @Override
+    public Stream<Customer> streamCustomers(int fetchSize) {
+        return customerDao.streamCustomers(fetchSize);
+    }
+
+    @Override
+    public Stream<Customer> streamRenters(int fetchSize) {
+        return customerDao.streamRenters(fetchSize);
+    }
+
+    @Override
+    public Page<Customer> getCustomerPage(int afterId, int pageSize) {
+        return customerDao.getCustomerPage(afterId, pageSize);
+    }
+
+    /**
+     * The update changes the name, and the old name is not known here, so the whole by-name cache is cleared.
+     */
+    @Override
+    public boolean updateCustomer(Customer customer) {
+        try {
+            return customerDao.updateCustomer(customer);
+        } finally {
+            customersById.invalidate(customer.getId());
+            customersByName.invalidateAll();
+        }
+    }
+
+    @Override
+    public RentalResult rentCar(Customer customer, Car car) {
+        try {
+            return customerDao.rentCar(customer, car);
+        } finally {
+            invalidate(customer);
+        }
+    }
+
+    @Override
+    public RentalResult returnCar(Customer customer) {
+        try {
+            return customerDao.returnCar(customer);
+        } finally {
+            invalidate(customer);
+        }
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    private void invalidate(Customer customer) {
+        customersById.invalidate(customer.getId());
+        customersByName.invalidate(customer.getName());
+    }
+
+    private static Customer copy(Customer customer) {
+        Customer copy = new Customer(customer.getName());
+        copy.setId(customer.getId());
+        copy.setRentedCarId(customer.getRentedCarId());
+        return copy;
+    }
+}
@@ -0,0 +1,133 @@
+package carsharing.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Size-bounded cache with a segmented LRU eviction policy.
+ * <p>
+ * New entries go into the probation segment and are only moved into the protected segment when they
+ * are read again, so a burst of one-off lookups (e.g. paging through every customer) only evicts other
+ * probation entries and never pushes out the entries that are read over and over. When the protected
+ * segment is full its least recently used entry drops back into probation instead of being evicted.
+ * <p>
+ * Loads run outside the lock. A value loaded while the cache was being invalidated is not stored,
+ * so a slow read can never put back an entry a write just removed. Empty results are not cached.
+ */
+public class EntityCache<K, V> {
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+    private static final double PROTECTED_SHARE = 0.8;
+
+    private final int maximumSize;
+    private final int protectedMaximumSize;
+    private final CacheStats stats;
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long invalidations;
+
+    public EntityCache(int maximumSize, CacheStats stats) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must not be negative");
+        }
+        this.maximumSize = maximumSize;
+        this.protectedMaximumSize = (int) (maximumSize * PROTECTED_SHARE);
+        this.stats = stats;
+    }
+
+    /**
+     * @param key
+     * @param loader
+     * @return Returns the cached value for the key, or loads it with the given loader and caches it if present.
+     */
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        long invalidationsBeforeLoad;
+        synchronized (this) {
+            V value = getIfPresent(key);
+            if (value != null) {
+                stats.recordHit();
+                return Optional.of(value);
+            }
+            stats.recordMiss();
+            invalidationsBeforeLoad = invalidations;
+        }
+
+        long start = System.nanoTime();
+        Optional<V> loaded = loader.apply(key);
+        stats.recordLoad(System.nanoTime() - start);
+
+        loaded.ifPresent(value -> {
+            synchronized (this) {
+                if (invalidations == invalidationsBeforeLoad && maximumSize > 0) {
+                    put(key, value);
+                }
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * @param key
+     * @param value Cached as if it had just been loaded, for values known to be current such as those of a
+     *              warm-start snapshot. Counted as neither a hit nor a miss.
+     */
+    public synchronized void preload(K key, V value) {
+        if (maximumSize > 0) {
+            put(key, value);
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        invalidations++;
+        probation.remove(key);
+        protectedSegment.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations++;
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    public synchronized int size() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    private V getIfPresent(K key) {
+        V value = protectedSegment.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = probation.remove(key);
+        if (value != null) {
+            protectedSegment.put(key, value);
+            if (protectedSegment.size() > protectedMaximumSize) {
+                Map.Entry<K, V> demoted = removeEldest(protectedSegment);
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+        return value;
+    }
+
+    private void put(K key, V value) {
+        if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, value);
+            return;
+        }
+        probation.put(key, value);
+        while (size() > maximumSize) {
+            removeEldest(probation.isEmpty() ? protectedSegment : probation);
+            stats.recordEviction();
+        }
+    }
+
+    private static <K, V> Map.Entry<K, V> removeEldest(LinkedHashMap<K, V> segment) {
+        Iterator<Map.Entry<K, V>> iterator = segment.entrySet().iterator();
+        Map.Entry<K, V> eldest = iterator.next();
+        Map.Entry<K, V> removed = Map.entry(eldest.getKey(), eldest.getValue());
+        iterator.remove();
+        return removed;
+    }
+}
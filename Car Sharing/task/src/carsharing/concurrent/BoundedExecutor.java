@@ -0,0 +1,62 @@
+package carsharing.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking calls asynchronously while letting at most a fixed number of them run at the same time,
+ * so callers never block and the database sees no more concurrent work than it can serve. With virtual
+ * threads every task gets its own thread and tasks over the limit wait for a permit on it; without them
+ * the tasks run on a fixed pool of maxConcurrency platform threads and the rest wait in its queue.
+ */
+public class BoundedExecutor implements AutoCloseable {
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    /**
+     * @param namePrefix     Name of the threads when platform threads are used.
+     * @param maxConcurrency Number of tasks that may run at once, usually the maximum size of the Connection Pool.
+     */
+    public BoundedExecutor(String namePrefix, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1: " + maxConcurrency);
+        }
+        this.executor = ThreadSupport.newBoundedExecutor(namePrefix, maxConcurrency);
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * @param task
+     * @return Returns a future completed with the task's result, or exceptionally with whatever it threw.
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try {
+                return task.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Stops accepting tasks. Tasks already submitted still run.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,46 @@
+package carsharing.concurrent;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Value that is only created the first time it is asked for, at most once even when several threads
+ * ask at the same time.
+ */
+public final class Lazy<T> implements Supplier<T> {
+    private final Supplier<T> supplier;
+    private volatile T value;
+
+    public Lazy(Supplier<T> supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public T get() {
+        T current = value;
+        if (current == null) {
+            synchronized (this) {
+                current = value;
+                if (current == null) {
+                    current = supplier.get();
+                    value = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public boolean isCreated() {
+        return value != null;
+    }
+
+    /**
+     * @param action Runs with the value if it was already created. Never creates it.
+     */
+    public void ifCreated(Consumer<T> action) {
+        T current = value;
+        if (current != null) {
+            action.accept(current);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package carsharing.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on virtual threads when the JVM has them (Java 21 and later) and on cached platform
+ * threads otherwise. The project still compiles for Java 17, so the virtual thread executor is
+ * looked up by reflection.
+ */
+public final class ThreadSupport {
+
+    private ThreadSupport() {
+    }
+
+    /**
+     * @param namePrefix Name of the platform threads used when virtual threads are not available.
+     * @return Returns an executor that starts a new thread for every task.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemonThreadFactory(namePrefix));
+        }
+    }
+
+    /**
+     * @param namePrefix     Name of the platform threads used when virtual threads are not available.
+     * @param maximumThreads Number of platform threads used when virtual threads are not available.
+     * @return Returns an executor that starts a new virtual thread for every task, or one that runs the tasks
+     * on a fixed pool of platform threads and queues the rest, so a burst of tasks cannot start a
+     * platform thread each.
+     */
+    public static ExecutorService newBoundedExecutor(String namePrefix, int maximumThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(maximumThreads, daemonThreadFactory(namePrefix));
+        }
+    }
+
+    public static boolean hasVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -5,13 +5,59 @@ import carsharing.model.Company;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CarDao {
-    boolean addCar(Car car);
+    int DEFAULT_BATCH_CHUNK_SIZE = 1000;
+    int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * Inserts the car in a single statement and returns it with its generated ID.
+     * Returns an empty Optional if a car with the same name already exists.
+     */
+    Optional<Car> addCar(Car car);
+
+    /**
+     * Inserts the cars with JDBC batches, one transaction per chunk of the given size.
+     * Returns one outcome per car, in the same order as the given list. The inserted cars get their generated ID.
+     */
+    List<InsertOutcome> addCars(List<Car> cars, int chunkSize);
+
+    default List<InsertOutcome> addCars(List<Car> cars) {
+        return addCars(cars, DEFAULT_BATCH_CHUNK_SIZE);
+    }
 
     boolean ifCarExists(Car car);
 
+    List<Car> getAllCars();
+
     List<Car> getAvailableCarList(Company company);
 
+    /**
+     * Streams every car ordered by ID straight from the open ResultSet, in constant memory.
+     * The stream holds a connection until it is closed.
+     */
+    Stream<Car> streamAllCars(int fetchSize);
+
+    default Stream<Car> streamAllCars() {
+        return streamAllCars(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Streaming version of getAvailableCarList, see streamAllCars.
+     */
+    Stream<Car> streamAvailableCars(Company company, int fetchSize);
+
+    default Stream<Car> streamAvailableCars(Company company) {
+        return streamAvailableCars(company, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Returns up to pageSize available cars of the company with an ID greater than afterId, ordered by ID.
+     */
+    Page<Car> getAvailableCarPage(Company company, int afterId, int pageSize);
+
     Optional<Car> getCarById(int id);
+
+    Optional<Car> getCarByName(String name);
 }
@@ -4,17 +4,53 @@ import carsharing.model.Company;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CompanyDao {
 
-    boolean addCompany(Company company);
+    int DEFAULT_BATCH_CHUNK_SIZE = 1000;
+    int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * Inserts the company in a single statement and returns it with its generated ID.
+     * Returns an empty Optional if a company with the same name already exists.
+     */
+    Optional<Company> addCompany(Company company);
+
+    /**
+     * Inserts the companies with JDBC batches, one transaction per chunk of the given size.
+     * Returns one outcome per company, in the same order as the given list. The inserted companies get their
+     * generated ID.
+     */
+    List<InsertOutcome> addCompanies(List<Company> companies, int chunkSize);
+
+    default List<InsertOutcome> addCompanies(List<Company> companies) {
+        return addCompanies(companies, DEFAULT_BATCH_CHUNK_SIZE);
+    }
 
     boolean ifCompanyExists(Company company);
 
     Optional<Company> getCompany(int companyId);
 
+    Optional<Company> getCompanyByName(String name);
+
     List<Company> getAllCompanies();
 
+    /**
+     * Streaming version of getAllCompanies, ordered by ID and read straight from the open ResultSet.
+     * The stream holds a connection until it is closed.
+     */
+    Stream<Company> streamAllCompanies(int fetchSize);
+
+    default Stream<Company> streamAllCompanies() {
+        return streamAllCompanies(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Returns up to pageSize companies with an ID greater than afterId, ordered by ID.
+     */
+    Page<Company> getCompanyPage(int afterId, int pageSize);
+
     boolean updateCompany(Company oldCompany, Company newCompany);
 
     boolean deleteCompany(Company company);
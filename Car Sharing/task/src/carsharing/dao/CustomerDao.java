@@ -1,15 +1,79 @@
 package carsharing.dao;
 
+import carsharing.model.Car;
 import carsharing.model.Customer;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CustomerDao {
-    boolean addCustomer(Customer customer);
+    int DEFAULT_BATCH_CHUNK_SIZE = 1000;
+    int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * Inserts the customer in a single statement and returns it with its generated ID.
+     * Returns an empty Optional if a customer with the same name already exists.
+     */
+    Optional<Customer> addCustomer(Customer customer);
+
+    /**
+     * Inserts the customers with JDBC batches, one transaction per chunk of the given size.
+     * Returns one outcome per customer, in the same order as the given list. The inserted customers get their
+     * generated ID.
+     */
+    List<InsertOutcome> addCustomers(List<Customer> customers, int chunkSize);
+
+    default List<InsertOutcome> addCustomers(List<Customer> customers) {
+        return addCustomers(customers, DEFAULT_BATCH_CHUNK_SIZE);
+    }
 
     boolean ifCustomerExists(Customer customer);
 
+    Optional<Customer> getCustomerById(int id);
+
+    Optional<Customer> getCustomerByName(String name);
+
     List<Customer> getCustomerList();
 
+    /**
+     * Streaming version of getCustomerList, ordered by ID and read straight from the open ResultSet.
+     * The stream holds a connection until it is closed.
+     */
+    Stream<Customer> streamCustomers(int fetchSize);
+
+    default Stream<Customer> streamCustomers() {
+        return streamCustomers(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Streams only the customers renting a car, ordered by ID. The stream holds a connection until it is closed.
+     */
+    Stream<Customer> streamRenters(int fetchSize);
+
+    default Stream<Customer> streamRenters() {
+        return streamRenters(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Returns up to pageSize customers with an ID greater than afterId, ordered by ID.
+     */
+    Page<Customer> getCustomerPage(int afterId, int pageSize);
+
+    /**
+     * Updates the customer's name. The rented car is only changed by rentCar and returnCar, which keep
+     * CAR.AVAILABLE in step with it.
+     */
     boolean updateCustomer(Customer customer);
+
+    /**
+     * Claims the car for the customer in one transaction. The car is only claimed if it is still free and
+     * the customer is not renting another car, so two sessions can never rent the same car.
+     */
+    RentalResult rentCar(Customer customer, Car car);
+
+    /**
+     * Clears the customer's rented car and marks the car as available again in one transaction.
+     */
+    RentalResult returnCar(Customer customer);
 }
@@ -0,0 +1,40 @@
+package carsharing.dao;
+
+import carsharing.model.CompanyUtilization;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Aggregate counts of the CAR table for the fleet report. The counting is done by the database,
+ * so only one row per company is returned instead of every car.
+ */
+public interface FleetReportDao {
+
+    record CarIdRange(int minimumId, int maximumId, int carCount) {
+    }
+
+    interface CompanyCountConsumer {
+        void accept(int companyId, int totalCars, int rentedCars);
+    }
+
+    /**
+     * @return Returns the total and rented cars of every company in one grouped query, in company ID order.
+     * Companies without cars are included with zero counts. Returns an empty list if the query fails.
+     */
+    List<CompanyUtilization> getCompanyUtilization();
+
+    /**
+     * @return Returns the lowest and highest car ID and the number of cars, or an empty Optional if the
+     * query fails. Both IDs are 0 when there are no cars.
+     */
+    Optional<CarIdRange> getCarIdRange();
+
+    /**
+     * Counts the total and rented cars per company among the cars with afterId < ID <= lastId.
+     * Only companies with cars in the range are passed to the consumer.
+     *
+     * @return Returns false if the counts could not be read.
+     */
+    boolean countCarsByCompany(int afterId, int lastId, CompanyCountConsumer consumer);
+}
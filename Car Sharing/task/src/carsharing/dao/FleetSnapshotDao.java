@@ -0,0 +1,48 @@
+package carsharing.dao;
+
+import carsharing.model.DatabaseFingerprint;
+
+import java.util.Optional;
+import java.util.function.IntConsumer;
+
+/**
+ * Row-by-row reads for the columnar fleet snapshot. The rows are handed over as primitives and
+ * strings straight from the ResultSet, so no model object is created for them.
+ * Each read returns false if it could not be completed.
+ */
+public interface FleetSnapshotDao {
+
+    interface NamedRowConsumer {
+        void accept(int id, String name);
+    }
+
+    interface CarRowConsumer {
+        void accept(int id, String name, int companyId);
+    }
+
+    /**
+     * Reads the companies with an ID greater than afterId, in ID order.
+     */
+    boolean readCompanies(int afterId, NamedRowConsumer consumer);
+
+    /**
+     * Reads the cars with an ID greater than afterId, in ID order.
+     */
+    boolean readCars(int afterId, CarRowConsumer consumer);
+
+    /**
+     * Reads the customers with an ID greater than afterId, in ID order.
+     */
+    boolean readCustomers(int afterId, NamedRowConsumer consumer);
+
+    /**
+     * Reads the ID of every rented car.
+     */
+    boolean readRentedCarIds(IntConsumer consumer);
+
+    /**
+     * Returns the fingerprint of the COMPANY, CAR and CUSTOMER tables, read in one query,
+     * or an empty Optional if it could not be read.
+     */
+    Optional<DatabaseFingerprint> getFingerprint();
+}
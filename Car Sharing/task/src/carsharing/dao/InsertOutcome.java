@@ -0,0 +1,10 @@
+package carsharing.dao;
+
+/**
+ * Result of inserting a single row through one of the bulk insert methods.
+ */
+public enum InsertOutcome {
+    INSERTED,
+    DUPLICATE,
+    FAILED
+}
@@ -0,0 +1,38 @@
+package carsharing.dao;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. The next page starts after {@link #getLastId()},
+ * so no page ever has to skip over the rows before it.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final boolean hasNext;
+    private final int lastId;
+
+    public Page(List<T> items, boolean hasNext, int lastId) {
+        this.items = items;
+        this.hasNext = hasNext;
+        this.lastId = lastId;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    /**
+     * @return Returns the ID of the last row on this page, or the key the page was requested with if it is empty.
+     */
+    public int getLastId() {
+        return lastId;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
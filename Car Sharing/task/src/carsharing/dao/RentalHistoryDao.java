@@ -0,0 +1,15 @@
+package carsharing.dao;
+
+import carsharing.model.RentalEvent;
+
+import java.util.List;
+
+public interface RentalHistoryDao {
+
+    /**
+     * Writes the events, in the order given, in one transaction. A rent event opens a RENTAL_HISTORY row
+     * and a return event closes the open row of the same customer and car.
+     * Returns false if the batch could not be written.
+     */
+    boolean writeEvents(List<RentalEvent> events);
+}
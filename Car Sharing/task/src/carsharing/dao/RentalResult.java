@@ -0,0 +1,13 @@
+package carsharing.dao;
+
+/**
+ * Result of renting or returning a car.
+ */
+public enum RentalResult {
+    RENTED,
+    RETURNED,
+    CAR_TAKEN,
+    ALREADY_RENTING,
+    NOT_RENTING,
+    FAILED
+}
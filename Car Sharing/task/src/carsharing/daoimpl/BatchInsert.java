@@ -0,0 +1,188 @@
+package carsharing.daoimpl;
+
+import carsharing.dao.InsertOutcome;
+import carsharing.metrics.SqlErrors;
+import carsharing.service.DatabaseService;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Shared JDBC batching used by the bulk insert methods of the DAO impls.
+ * <p>
+ * Rows are inserted in chunks, each chunk on one borrowed connection and in one transaction.
+ * Names that already exist in the table (one SELECT ... IN per chunk) or that an earlier chunk of the
+ * same call inserted are reported as DUPLICATE and skipped; the rest go through addBatch/executeBatch.
+ * Rows the driver rejects are reported as FAILED while the rest of the chunk is committed. A name repeated
+ * within a chunk is batched once; its later copies are DUPLICATE if that row was inserted and FAILED if not.
+ * Each inserted row gets its generated ID, so callers do not need to read the rows back.
+ */
+class BatchInsert<T> {
+    /**
+     * Binds the values of one row to the insert statement.
+     */
+    @FunctionalInterface
+    interface RowBinder<T> {
+        void bind(PreparedStatement statement, T row) throws SQLException;
+    }
+
+    private final DatabaseService databaseService;
+    private final String tableName;
+    private final String insertStatement;
+    private final Function<T, String> nameOf;
+    private final RowBinder<T> rowBinder;
+    private final ObjIntConsumer<T> idSetter;
+
+    BatchInsert(DatabaseService databaseService, String tableName, String insertStatement,
+                Function<T, String> nameOf, RowBinder<T> rowBinder, ObjIntConsumer<T> idSetter) {
+        this.databaseService = databaseService;
+        this.tableName = tableName;
+        this.insertStatement = insertStatement;
+        this.nameOf = nameOf;
+        this.rowBinder = rowBinder;
+        this.idSetter = idSetter;
+    }
+
+    /**
+     * @param rows
+     * @param chunkSize
+     * @return Returns one outcome per row, in the same order as the given rows.
+     */
+    List<InsertOutcome> insertAll(List<T> rows, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1: " + chunkSize);
+        }
+
+        List<InsertOutcome> outcomes = new ArrayList<>(rows.size());
+        Set<String> insertedNames = new HashSet<>();
+
+        for (int from = 0; from < rows.size(); from += chunkSize) {
+            List<T> chunk = rows.subList(from, Math.min(from + chunkSize, rows.size()));
+            outcomes.addAll(insertChunk(chunk, insertedNames));
+        }
+        return outcomes;
+    }
+
+    /**
+     * @param insertedNames Names inserted by the earlier chunks of the call. The names this chunk inserted are
+     *                      added once it is committed.
+     */
+    private List<InsertOutcome> insertChunk(List<T> chunk, Set<String> insertedNames) {
+        InsertOutcome[] outcomes = new InsertOutcome[chunk.size()];
+
+        try (Connection connection = databaseService.getConnection()) {
+            connection.setAutoCommit(false);
+            Map<String, Integer> batchedRowByName = new HashMap<>();
+            List<Integer> repeatedRows = new ArrayList<>();
+            try {
+                Set<String> existingNames = findExistingNames(connection, chunk);
+                List<Integer> batchedRows = new ArrayList<>();
+
+                try (PreparedStatement statement = connection.prepareStatement(insertStatement,
+                        Statement.RETURN_GENERATED_KEYS)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        String name = nameOf.apply(chunk.get(i));
+                        if (existingNames.contains(name) || insertedNames.contains(name)) {
+                            outcomes[i] = InsertOutcome.DUPLICATE;
+                            continue;
+                        }
+                        if (batchedRowByName.putIfAbsent(name, i) != null) {
+                            repeatedRows.add(i);
+                            continue;
+                        }
+                        rowBinder.bind(statement, chunk.get(i));
+                        statement.addBatch();
+                        batchedRows.add(i);
+                    }
+
+                    int[] updateCounts;
+                    try {
+                        updateCounts = batchedRows.isEmpty() ? new int[0] : statement.executeBatch();
+                    } catch (BatchUpdateException e) {
+                        SqlErrors.report(e);
+                        updateCounts = e.getUpdateCounts();
+                    }
+
+                    for (int i = 0; i < batchedRows.size(); i++) {
+                        boolean inserted = i < updateCounts.length && updateCounts[i] != Statement.EXECUTE_FAILED;
+                        outcomes[batchedRows.get(i)] = inserted ? InsertOutcome.INSERTED : InsertOutcome.FAILED;
+                    }
+                    setGeneratedIds(statement, chunk, batchedRows, outcomes);
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+
+            for (int i : repeatedRows) {
+                int batchedRow = batchedRowByName.get(nameOf.apply(chunk.get(i)));
+                outcomes[i] = outcomes[batchedRow] == InsertOutcome.INSERTED ? InsertOutcome.DUPLICATE
+                        : InsertOutcome.FAILED;
+            }
+            batchedRowByName.forEach((name, row) -> {
+                if (outcomes[row] == InsertOutcome.INSERTED) {
+                    insertedNames.add(name);
+                }
+            });
+        } catch (SQLException e) {
+            SqlErrors.report(e);
+            for (int i = 0; i < outcomes.length; i++) {
+                if (outcomes[i] != InsertOutcome.DUPLICATE) {
+                    outcomes[i] = InsertOutcome.FAILED;
+                }
+            }
+        }
+        return Arrays.asList(outcomes);
+    }
+
+    /*
+    The driver returns one key per inserted row, in batch order, with the failed rows left out.
+     */
+    private void setGeneratedIds(PreparedStatement statement, List<T> chunk, List<Integer> batchedRows,
+                                 InsertOutcome[] outcomes) throws SQLException {
+        try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+            for (int row : batchedRows) {
+                if (outcomes[row] == InsertOutcome.INSERTED && generatedKeys.next()) {
+                    idSetter.accept(chunk.get(row), generatedKeys.getInt(1));
+                }
+            }
+        }
+    }
+
+    private Set<String> findExistingNames(Connection connection, List<T> chunk) throws SQLException {
+        if (chunk.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+        String sqlStatement = "SELECT NAME FROM " + tableName + " WHERE NAME IN (" + placeholders + ")";
+        Set<String> existingNames = new HashSet<>();
+
+        try (PreparedStatement statement = connection.prepareStatement(sqlStatement)) {
+            for (int i = 0; i < chunk.size(); i++) {
+                statement.setString(i + 1, nameOf.apply(chunk.get(i)));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    existingNames.add(resultSet.getString(1));
+                }
+            }
+        }
+        return existingNames;
+    }
+}
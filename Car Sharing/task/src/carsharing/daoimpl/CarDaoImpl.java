@@ -1,129 +1,224 @@
 package carsharing.daoimpl;
 
 import carsharing.dao.CarDao;
+import carsharing.dao.InsertOutcome;
+import carsharing.dao.Page;
+import carsharing.metrics.SqlErrors;
 import carsharing.model.Car;
 import carsharing.model.Company;
+import carsharing.service.DatabaseService;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class CarDaoImpl implements CarDao {
-    private final Connection connection;
-
-    public CarDaoImpl(Connection connection) {
-        this.connection = connection;
-        initializeTable();
+    private final DatabaseService databaseService;
+    private final BatchInsert<Car> batchInsert;
+
+    public CarDaoImpl(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+        this.batchInsert = new BatchInsert<>(databaseService, "CAR",
+                "INSERT INTO CAR(name,company_id) VALUES(?,?)", Car::getName, (statement, car) -> {
+                    statement.setString(1, car.getName());
+                    statement.setInt(2, car.getCompanyId());
+                }, Car::setId);
     }
 
     @Override
-    public boolean addCar(Car car) {
-        boolean result = false;
+    public Optional<Car> addCar(Car car) {
+        Optional<Car> result = Optional.empty();
         String sqlStatement = "INSERT INTO CAR(name,company_id) VALUES(?,?)";
-        if (!ifCarExists(car)) {
-            try {
-                PreparedStatement statement = connection.prepareStatement(sqlStatement);
-                statement.setString(1, car.getName());
-                statement.setInt(2, car.getCompanyId());
-                statement.execute();
-                result = true;
-            } catch (SQLException e) {
-                e.printStackTrace();
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sqlStatement, Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, car.getName());
+            statement.setInt(2, car.getCompanyId());
+            statement.executeUpdate();
+            try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    car.setId(generatedKeys.getInt(1));
+                    result = Optional.of(car);
+                }
+            }
+        } catch (SQLException e) {
+            if (!SqlStates.isDuplicateKey(e)) {
+                SqlErrors.report(e);
             }
         }
         return result;
     }
 
+    @Override
+    public List<InsertOutcome> addCars(List<Car> cars, int chunkSize) {
+        return batchInsert.insertAll(cars, chunkSize);
+    }
+
     @Override
     public boolean ifCarExists(Car car) {
         boolean ifSuccessful = false;
         String sqlStatement = "SELECT * FROM CAR WHERE name = ?";
 
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement);
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement)) {
             preparedStatement.setString(1, car.getName());
-            ResultSet resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                String savedCarName = resultSet.getString(2);
-                if (car.getName().equals(savedCarName)) {
-                    ifSuccessful = true;
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    String savedCarName = resultSet.getString(2);
+                    if (car.getName().equals(savedCarName)) {
+                        ifSuccessful = true;
+                    }
                 }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            SqlErrors.report(e);
         }
 
         return ifSuccessful;
     }
 
+    @Override
+    public List<Car> getAllCars() {
+        List<Car> carList = new ArrayList<>();
+        String sqlStatement = "SELECT ID, NAME, COMPANY_ID FROM CAR ORDER BY ID";
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                Car car = new Car(resultSet.getString(2), resultSet.getInt(3));
+                car.setId(resultSet.getInt(1));
+                carList.add(car);
+            }
+        } catch (SQLException e) {
+            SqlErrors.report(e);
+        }
+        return carList;
+    }
+
+    @Override
+    public Stream<Car> streamAllCars(int fetchSize) {
+        String sqlStatement = "SELECT ID, NAME, COMPANY_ID FROM CAR ORDER BY ID";
+        return ResultSetStream.open(databaseService, sqlStatement, preparedStatement -> {
+        }, fetchSize, CarDaoImpl::toCar);
+    }
+
+    @Override
+    public Stream<Car> streamAvailableCars(Company company, int fetchSize) {
+        String sqlStatement = "SELECT ID, NAME, COMPANY_ID " +
+                "FROM CAR " +
+                "WHERE COMPANY_ID = ? AND AVAILABLE = TRUE " +
+                "ORDER BY ID";
+        return ResultSetStream.open(databaseService, sqlStatement,
+                preparedStatement -> preparedStatement.setInt(1, company.getId()), fetchSize, CarDaoImpl::toCar);
+    }
+
+    private static Car toCar(ResultSet resultSet) throws SQLException {
+        Car car = new Car(resultSet.getString(2), resultSet.getInt(3));
+        car.setId(resultSet.getInt(1));
+        return car;
+    }
+
     @Override
     public List<Car> getAvailableCarList(Company company) {
         List<Car> carList = new ArrayList<>();
-        String sqlStatement = "SELECT * " +
+        String sqlStatement = "SELECT ID, NAME, COMPANY_ID " +
                 "FROM CAR " +
-                "LEFT JOIN CUSTOMER " +
-                "ON CAR.id = CUSTOMER.rented_car_id " +
-                "WHERE CUSTOMER.name IS NULL AND CAR.company_id = ?";
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement);
+                "WHERE COMPANY_ID = ? AND AVAILABLE = TRUE " +
+                "ORDER BY ID";
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement)) {
             preparedStatement.setInt(1, company.getId());
-            ResultSet resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                int carId = resultSet.getInt(1);
-                String name = resultSet.getString(2);
-                int companyId = resultSet.getInt(3);
-
-                Car car = new Car(name, companyId);
-                car.setId(carId);
-                carList.add(car);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    int carId = resultSet.getInt(1);
+                    String name = resultSet.getString(2);
+                    int companyId = resultSet.getInt(3);
+
+                    Car car = new Car(name, companyId);
+                    car.setId(carId);
+                    carList.add(car);
+                }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            SqlErrors.report(e);
         }
         return carList;
     }
 
+    @Override
+    public Page<Car> getAvailableCarPage(Company company, int afterId, int pageSize) {
+        List<Car> carList = new ArrayList<>();
+        String sqlStatement = "SELECT ID, NAME, COMPANY_ID " +
+                "FROM CAR " +
+                "WHERE COMPANY_ID = ? AND AVAILABLE = TRUE AND ID > ? " +
+                "ORDER BY ID LIMIT ?";
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement)) {
+            preparedStatement.setInt(1, company.getId());
+            preparedStatement.setInt(2, afterId);
+            preparedStatement.setInt(3, pageSize + 1);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    Car car = new Car(resultSet.getString(2), resultSet.getInt(3));
+                    car.setId(resultSet.getInt(1));
+                    carList.add(car);
+                }
+            }
+        } catch (SQLException e) {
+            SqlErrors.report(e);
+        }
+        return Pages.of(carList, pageSize, afterId, Car::getId);
+    }
+
     @Override
     public Optional<Car> getCarById(int carId) {
         Optional<Car> result = Optional.empty();
         String sqlStatement = "SELECT * FROM CAR WHERE ID = ?";
 
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement);
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement)) {
             preparedStatement.setInt(1, carId);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                int savedCarId = resultSet.getInt(1);
-                String savedCarName = resultSet.getString(2);
-                int savedCompanyId = resultSet.getInt(3);
-
-                Car car = new Car(savedCarName, savedCompanyId);
-                car.setId(savedCarId);
-
-                if (savedCarId == carId) {
-                    result = Optional.of(car);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    int savedCarId = resultSet.getInt(1);
+                    String savedCarName = resultSet.getString(2);
+                    int savedCompanyId = resultSet.getInt(3);
+
+                    Car car = new Car(savedCarName, savedCompanyId);
+                    car.setId(savedCarId);
+
+                    if (savedCarId == carId) {
+                        result = Optional.of(car);
+                    }
                 }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            SqlErrors.report(e);
         }
 
         return result;
     }
 
-    private void initializeTable() {
-        final String sqlCreateTableStatement = "CREATE TABLE IF NOT EXISTS CAR " +
-                "(ID INTEGER NOT NULL AUTO_INCREMENT, " +
-                " NAME VARCHAR(255) NOT NULL UNIQUE, " +
-                " COMPANY_ID INT NOT NULL, " +
-                " PRIMARY KEY (ID)," +
-                " FOREIGN KEY (COMPANY_ID) REFERENCES COMPANY(ID))";
-
-        try {
-            connection.prepareStatement(sqlCreateTableStatement).execute();
+    @Override
+    public Optional<Car> getCarByName(String name) {
+        Optional<Car> result = Optional.empty();
+        String sqlStatement = "SELECT ID, NAME, COMPANY_ID FROM CAR WHERE NAME = ?";
+
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement)) {
+            preparedStatement.setString(1, name);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    Car car = new Car(resultSet.getString(2), resultSet.getInt(3));
+                    car.setId(resultSet.getInt(1));
+                    result = Optional.of(car);
+                }
+            }
         } catch (SQLException e) {
-            e.printStackTrace();
+            SqlErrors.report(e);
         }
+
+        return result;
     }
-}
\ No newline at end of file
+}
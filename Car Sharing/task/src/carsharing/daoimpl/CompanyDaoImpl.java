@@ -1,56 +1,65 @@
 package carsharing.daoimpl;
 
 import carsharing.dao.CompanyDao;
+import carsharing.dao.InsertOutcome;
+import carsharing.dao.Page;
+import carsharing.metrics.SqlErrors;
 import carsharing.model.Company;
+import carsharing.service.DatabaseService;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class CompanyDaoImpl implements CompanyDao {
 
-    private final Connection connection;
+    private final DatabaseService databaseService;
+    private final BatchInsert<Company> batchInsert;
 
-    public CompanyDaoImpl(Connection connection) {
-        this.connection = connection;
-        initializeTable();
+    public CompanyDaoImpl(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+        this.batchInsert = new BatchInsert<>(databaseService, "COMPANY",
+                "INSERT INTO COMPANY(name) VALUES(?)", Company::getName,
+                (statement, company) -> statement.setString(1, company.getName()), Company::setId);
     }
 
     @Override
-    public boolean addCompany(Company company) {
-        boolean ifSuccessful = false;
+    public Optional<Company> addCompany(Company company) {
+        Optional<Company> result = Optional.empty();
         String sqlStatement = "INSERT INTO COMPANY(name) VALUES(?)";
-        if (!ifCompanyExists(company)) {
-            try {
-                PreparedStatement statement = connection.prepareStatement(sqlStatement);
-                statement.setString(1, company.getName());
-                statement.execute();
-                ifSuccessful = true;
-            } catch (SQLException e) {
-                e.printStackTrace();
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sqlStatement, Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, company.getName());
+            statement.executeUpdate();
+            try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    company.setId(generatedKeys.getInt(1));
+                    result = Optional.of(company);
+                }
+            }
+        } catch (SQLException e) {
+            if (!SqlStates.isDuplicateKey(e)) {
+                SqlErrors.report(e);
             }
         }
-        return ifSuccessful;
+        return result;
+    }
+
+    @Override
+    public List<InsertOutcome> addCompanies(List<Company> companies, int chunkSize) {
+        return batchInsert.insertAll(companies, chunkSize);
     }
 
     @Override
     public boolean ifCompanyExists(Company company) {
         boolean ifSuccessful = false;
-        String sqlStatement = "SELECT * FROM COMPANY WHERE name = ?";
 
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement);
-            preparedStatement.setString(1, company.getName());
-            ResultSet resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                String savedCompanyName = resultSet.getString(2);
-                if (company.getName().equals(savedCompanyName)) {
-                    ifSuccessful = true;
-                }
-            }
+        try (Connection connection = databaseService.getConnection()) {
+            ifSuccessful = ifCompanyExists(connection, company);
         } catch (SQLException e) {
-            e.printStackTrace();
+            SqlErrors.report(e);
         }
 
         return ifSuccessful;
@@ -61,20 +70,44 @@ public class CompanyDaoImpl implements CompanyDao {
         Optional<Company> result = Optional.empty();
         String sqlStatement = "SELECT * FROM COMPANY WHERE id = ?";
 
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement);
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement)) {
             preparedStatement.setInt(1, companyId);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                int savedId = resultSet.getInt(1);
-                String name = resultSet.getString(2);
-                Company savedCompany = new Company(name);
-                if (companyId == savedId) {
-                    result = Optional.of(savedCompany);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    int savedId = resultSet.getInt(1);
+                    String name = resultSet.getString(2);
+                    Company savedCompany = new Company(name);
+                    savedCompany.setId(savedId);
+                    if (companyId == savedId) {
+                        result = Optional.of(savedCompany);
+                    }
                 }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            SqlErrors.report(e);
+        }
+
+        return result;
+    }
+
+    @Override
+    public Optional<Company> getCompanyByName(String name) {
+        Optional<Company> result = Optional.empty();
+        String sqlStatement = "SELECT ID, NAME FROM COMPANY WHERE NAME = ?";
+
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement)) {
+            preparedStatement.setString(1, name);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    Company company = new Company(resultSet.getString(2));
+                    company.setId(resultSet.getInt(1));
+                    result = Optional.of(company);
+                }
+            }
+        } catch (SQLException e) {
+            SqlErrors.report(e);
         }
 
         return result;
@@ -85,9 +118,9 @@ public class CompanyDaoImpl implements CompanyDao {
         List<Company> companies = new ArrayList<>();
         String sqlStatement = "SELECT * FROM COMPANY";
 
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement);
-            ResultSet resultSet = preparedStatement.executeQuery();
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
             while (resultSet.next()) {
                 int id = resultSet.getInt(1);
                 String name = resultSet.getString(2);
@@ -96,25 +129,59 @@ public class CompanyDaoImpl implements CompanyDao {
                 companies.add(company);
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            SqlErrors.report(e);
         }
         return companies;
     }
 
+    @Override
+    public Stream<Company> streamAllCompanies(int fetchSize) {
+        String sqlStatement = "SELECT ID, NAME FROM COMPANY ORDER BY ID";
+        return ResultSetStream.open(databaseService, sqlStatement, preparedStatement -> {
+        }, fetchSize, resultSet -> {
+            Company company = new Company(resultSet.getString(2));
+            company.setId(resultSet.getInt(1));
+            return company;
+        });
+    }
+
+    @Override
+    public Page<Company> getCompanyPage(int afterId, int pageSize) {
+        List<Company> companies = new ArrayList<>();
+        String sqlStatement = "SELECT ID, NAME FROM COMPANY WHERE ID > ? ORDER BY ID LIMIT ?";
+
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement)) {
+            preparedStatement.setInt(1, afterId);
+            preparedStatement.setInt(2, pageSize + 1);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    Company company = new Company(resultSet.getString(2));
+                    company.setId(resultSet.getInt(1));
+                    companies.add(company);
+                }
+            }
+        } catch (SQLException e) {
+            SqlErrors.report(e);
+        }
+        return Pages.of(companies, pageSize, afterId, Company::getId);
+    }
+
     @Override
     public boolean updateCompany(Company oldCompany, Company newCompany) {
         boolean ifSuccessful = false;
         String sqlStatement = "UPDATE COMPANY SET NAME = ? WHERE NAME = ?";
-        if (ifCompanyExists(oldCompany)) {
-            try {
-                PreparedStatement statement = connection.prepareStatement(sqlStatement);
-                statement.setString(1, oldCompany.getName());
-                statement.setString(2, newCompany.getName());
-                statement.execute();
-                ifSuccessful = true;
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
+        try (Connection connection = databaseService.getConnection()) {
+            if (ifCompanyExists(connection, oldCompany)) {
+                try (PreparedStatement statement = connection.prepareStatement(sqlStatement)) {
+                    statement.setString(1, oldCompany.getName());
+                    statement.setString(2, newCompany.getName());
+                    statement.execute();
+                    ifSuccessful = true;
+                }
             }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
         }
         return ifSuccessful;
     }
@@ -123,29 +190,40 @@ public class CompanyDaoImpl implements CompanyDao {
     public boolean deleteCompany(Company company) {
         boolean ifSuccessful = false;
         String sqlStatement = "DELETE * FROM COMPANY WHERE name = ?";
-        if (ifCompanyExists(company)) {
-            try {
-                PreparedStatement statement = connection.prepareStatement(sqlStatement);
-                statement.setString(1, company.getName());
-                statement.execute();
-                ifSuccessful = true;
-            } catch (SQLException e) {
-                e.printStackTrace();
+        try (Connection connection = databaseService.getConnection()) {
+            if (ifCompanyExists(connection, company)) {
+                try (PreparedStatement statement = connection.prepareStatement(sqlStatement)) {
+                    statement.setString(1, company.getName());
+                    statement.execute();
+                    ifSuccessful = true;
+                }
             }
+        } catch (SQLException e) {
+            SqlErrors.report(e);
         }
         return ifSuccessful;
     }
 
-    private void initializeTable() {
-        final String sqlCreateTableStatement = "CREATE TABLE IF NOT EXISTS COMPANY " +
-                "(id INTEGER NOT NULL AUTO_INCREMENT, " +
-                " name VARCHAR(255) NOT NULL UNIQUE, " +
-                " PRIMARY KEY ( id ))";
+    /**
+     * Existence check on a connection the caller already borrowed, so update and delete do not
+     * hold two pooled connections at once.
+     */
+    private boolean ifCompanyExists(Connection connection, Company company) throws SQLException {
+        boolean ifSuccessful = false;
+        String sqlStatement = "SELECT * FROM COMPANY WHERE name = ?";
 
-        try {
-            connection.prepareStatement(sqlCreateTableStatement).execute();
-        } catch (SQLException e) {
-            e.printStackTrace();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement)) {
+            preparedStatement.setString(1, company.getName());
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    String savedCompanyName = resultSet.getString(2);
+                    if (company.getName().equals(savedCompanyName)) {
+                        ifSuccessful = true;
+                    }
+                }
+            }
         }
+
+        return ifSuccessful;
     }
 }
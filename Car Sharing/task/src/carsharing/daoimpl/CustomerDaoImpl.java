@@ -1,40 +1,72 @@
 package carsharing.daoimpl;
 
 import carsharing.dao.CustomerDao;
+import carsharing.dao.InsertOutcome;
+import carsharing.dao.Page;
+import carsharing.dao.RentalResult;
+import carsharing.metrics.SqlErrors;
+import carsharing.model.Car;
 import carsharing.model.Customer;
+import carsharing.service.DatabaseService;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
 
 public class CustomerDaoImpl implements CustomerDao {
+    private static final int MAX_RENTAL_ATTEMPTS = 3;
 
-    private final Connection connection;
+    /**
+     * One attempt at renting or returning a car, run inside a transaction.
+     */
+    @FunctionalInterface
+    private interface RentalStep {
+        RentalResult run(Connection connection) throws SQLException;
+    }
+
+    private final DatabaseService databaseService;
+    private final BatchInsert<Customer> batchInsert;
 
-    public CustomerDaoImpl(Connection connection) {
-        this.connection = connection;
-        initializeTable();
+    public CustomerDaoImpl(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+        this.batchInsert = new BatchInsert<>(databaseService, "CUSTOMER",
+                "INSERT INTO CUSTOMER(name) VALUES(?)", Customer::getName,
+                (statement, customer) -> statement.setString(1, customer.getName()), Customer::setId);
     }
 
     @Override
-    public boolean addCustomer(Customer customer) {
-        boolean ifSuccessful = false;
+    public Optional<Customer> addCustomer(Customer customer) {
+        Optional<Customer> result = Optional.empty();
         String sqlStatement = "INSERT INTO CUSTOMER(name) VALUES(?)";
 
-        if (!ifCustomerExists(customer)) {
-            try {
-                PreparedStatement statement = connection.prepareStatement(sqlStatement);
-                statement.setString(1, customer.getName());
-                statement.execute();
-                ifSuccessful = true;
-            } catch (SQLException e) {
-                e.printStackTrace();
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sqlStatement, Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, customer.getName());
+            statement.executeUpdate();
+            try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    customer.setId(generatedKeys.getInt(1));
+                    result = Optional.of(customer);
+                }
+            }
+        } catch (SQLException e) {
+            if (!SqlStates.isDuplicateKey(e)) {
+                SqlErrors.report(e);
             }
         }
-        return ifSuccessful;
+        return result;
+    }
+
+    @Override
+    public List<InsertOutcome> addCustomers(List<Customer> customers, int chunkSize) {
+        return batchInsert.insertAll(customers, chunkSize);
     }
 
     @Override
@@ -42,31 +74,42 @@ public class CustomerDaoImpl implements CustomerDao {
         boolean ifSuccessful = false;
         String sqlStatement = "SELECT * FROM CUSTOMER WHERE NAME = ?";
 
-        try {
-            PreparedStatement statement = connection.prepareStatement(sqlStatement);
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sqlStatement)) {
             statement.setString(1, customer.getName());
-            ResultSet resultSet = statement.executeQuery();
-            while (resultSet.next()) {
-                String savedCustomerName = resultSet.getString(2);
-                if (customer.getName().equals(savedCustomerName)) {
-                    ifSuccessful = true;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String savedCustomerName = resultSet.getString(2);
+                    if (customer.getName().equals(savedCustomerName)) {
+                        ifSuccessful = true;
+                    }
                 }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            SqlErrors.report(e);
         }
 
         return ifSuccessful;
     }
 
+    @Override
+    public Optional<Customer> getCustomerById(int id) {
+        return findCustomer("SELECT ID, NAME, RENTED_CAR_ID FROM CUSTOMER WHERE ID = ?", id);
+    }
+
+    @Override
+    public Optional<Customer> getCustomerByName(String name) {
+        return findCustomer("SELECT ID, NAME, RENTED_CAR_ID FROM CUSTOMER WHERE NAME = ?", name);
+    }
+
     @Override
     public List<Customer> getCustomerList() {
         List<Customer> customers = new ArrayList<>();
         String sqlStatement = "SELECT * FROM CUSTOMER";
 
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement);
-            ResultSet resultSet = preparedStatement.executeQuery();
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
                 int id = resultSet.getInt(1);
@@ -78,46 +121,184 @@ public class CustomerDaoImpl implements CustomerDao {
                 customers.add(customer);
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            SqlErrors.report(e);
         }
         return customers;
     }
 
+    @Override
+    public Stream<Customer> streamCustomers(int fetchSize) {
+        String sqlStatement = "SELECT ID, NAME, RENTED_CAR_ID FROM CUSTOMER ORDER BY ID";
+        return ResultSetStream.open(databaseService, sqlStatement, preparedStatement -> {
+        }, fetchSize, resultSet -> {
+            Customer customer = new Customer(resultSet.getString(2));
+            customer.setId(resultSet.getInt(1));
+            customer.setRentedCarId(resultSet.getInt(3));
+            return customer;
+        });
+    }
+
+    @Override
+    public Stream<Customer> streamRenters(int fetchSize) {
+        String sqlStatement = "SELECT ID, NAME, RENTED_CAR_ID FROM CUSTOMER " +
+                "WHERE RENTED_CAR_ID IS NOT NULL ORDER BY ID";
+        return ResultSetStream.open(databaseService, sqlStatement, preparedStatement -> {
+        }, fetchSize, resultSet -> {
+            Customer customer = new Customer(resultSet.getString(2));
+            customer.setId(resultSet.getInt(1));
+            customer.setRentedCarId(resultSet.getInt(3));
+            return customer;
+        });
+    }
+
+    @Override
+    public Page<Customer> getCustomerPage(int afterId, int pageSize) {
+        List<Customer> customers = new ArrayList<>();
+        String sqlStatement = "SELECT ID, NAME, RENTED_CAR_ID FROM CUSTOMER WHERE ID > ? ORDER BY ID LIMIT ?";
+
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement)) {
+            preparedStatement.setInt(1, afterId);
+            preparedStatement.setInt(2, pageSize + 1);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    Customer customer = new Customer(resultSet.getString(2));
+                    customer.setId(resultSet.getInt(1));
+                    customer.setRentedCarId(resultSet.getInt(3));
+                    customers.add(customer);
+                }
+            }
+        } catch (SQLException e) {
+            SqlErrors.report(e);
+        }
+        return Pages.of(customers, pageSize, afterId, Customer::getId);
+    }
+
     @Override
     public boolean updateCustomer(Customer customer) {
         boolean ifSuccessful = false;
-        String sqlStatement = "UPDATE CUSTOMER SET NAME = ?, RENTED_CAR_ID = ? WHERE ID = ?";
-        try {
-            PreparedStatement statement = connection.prepareStatement(sqlStatement);
+        String sqlStatement = "UPDATE CUSTOMER SET NAME = ? WHERE ID = ?";
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sqlStatement)) {
             statement.setString(1, customer.getName());
-            if (customer.getRentedCarId() == 0) {
-                statement.setNull(2, 4);
-            } else {
-                statement.setInt(2, customer.getRentedCarId());
-            }
-            statement.setInt(3, customer.getId());
+            statement.setInt(2, customer.getId());
             statement.execute();
             ifSuccessful = true;
         } catch (SQLException e) {
-            e.printStackTrace();
+            SqlErrors.report(e);
         }
 
         return ifSuccessful;
     }
 
-    private void initializeTable() {
-        final String sqlCreateTableStatement = "CREATE TABLE IF NOT EXISTS CUSTOMER " +
-                "(ID INTEGER NOT NULL AUTO_INCREMENT, " +
-                " NAME VARCHAR(255) NOT NULL UNIQUE, " +
-                " RENTED_CAR_ID INTEGER NULL," +
-                " PRIMARY KEY ( ID )," +
-                " FOREIGN KEY (RENTED_CAR_ID)" +
-                " REFERENCES CAR(ID))";
+    /**
+     * The customer row is claimed before the car row, in rentCar and returnCar alike, so the two can never
+     * deadlock each other. Both updates only match if the row is still in the expected state; when either
+     * matches nothing the transaction is rolled back and the reason is returned.
+     */
+    @Override
+    public RentalResult rentCar(Customer customer, Car car) {
+        String customerStatement = "UPDATE CUSTOMER SET RENTED_CAR_ID = ? WHERE ID = ? AND RENTED_CAR_ID IS NULL";
+        String carStatement = "UPDATE CAR SET AVAILABLE = FALSE WHERE ID = ? AND AVAILABLE = TRUE";
 
-        try {
-            connection.prepareStatement(sqlCreateTableStatement).execute();
+        return inRentalTransaction(connection -> {
+            try (PreparedStatement claimCustomer = connection.prepareStatement(customerStatement);
+                 PreparedStatement claimCar = connection.prepareStatement(carStatement)) {
+                claimCustomer.setInt(1, car.getId());
+                claimCustomer.setInt(2, customer.getId());
+                if (claimCustomer.executeUpdate() == 0) {
+                    return RentalResult.ALREADY_RENTING;
+                }
+
+                claimCar.setInt(1, car.getId());
+                if (claimCar.executeUpdate() == 0) {
+                    return RentalResult.CAR_TAKEN;
+                }
+            }
+            return RentalResult.RENTED;
+        });
+    }
+
+    @Override
+    public RentalResult returnCar(Customer customer) {
+        String customerStatement = "UPDATE CUSTOMER SET RENTED_CAR_ID = NULL WHERE ID = ? AND RENTED_CAR_ID = ?";
+        String carStatement = "UPDATE CAR SET AVAILABLE = TRUE WHERE ID = ?";
+
+        return inRentalTransaction(connection -> {
+            try (PreparedStatement releaseCustomer = connection.prepareStatement(customerStatement);
+                 PreparedStatement releaseCar = connection.prepareStatement(carStatement)) {
+                releaseCustomer.setInt(1, customer.getId());
+                releaseCustomer.setInt(2, customer.getRentedCarId());
+                if (releaseCustomer.executeUpdate() == 0) {
+                    return RentalResult.NOT_RENTING;
+                }
+
+                releaseCar.setInt(1, customer.getRentedCarId());
+                releaseCar.executeUpdate();
+            }
+            return RentalResult.RETURNED;
+        });
+    }
+
+    /**
+     * Looks up a single customer by a unique column, the ID or the name.
+     */
+    private Optional<Customer> findCustomer(String sqlStatement, Object key) {
+        Optional<Customer> result = Optional.empty();
+
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement)) {
+            preparedStatement.setObject(1, key);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    Customer customer = new Customer(resultSet.getString(2));
+                    customer.setId(resultSet.getInt(1));
+                    customer.setRentedCarId(resultSet.getInt(3));
+                    result = Optional.of(customer);
+                }
+            }
         } catch (SQLException e) {
-            e.printStackTrace();
+            SqlErrors.report(e);
+        }
+
+        return result;
+    }
+
+    /**
+     * Runs the rental step in its own transaction and commits it only if the step succeeded.
+     * A step that loses a row lock to another session is retried a few times with a short randomised back-off.
+     */
+    private RentalResult inRentalTransaction(RentalStep step) {
+        for (int attempt = 1; ; attempt++) {
+            try (Connection connection = databaseService.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    RentalResult result = step.run(connection);
+                    if (result == RentalResult.RENTED || result == RentalResult.RETURNED) {
+                        connection.commit();
+                    } else {
+                        connection.rollback();
+                    }
+                    return result;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                if (!SqlStates.isRetryableConflict(e) || attempt == MAX_RENTAL_ATTEMPTS) {
+                    SqlErrors.report(e);
+                    return RentalResult.FAILED;
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 10L * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,83 @@
+package carsharing.daoimpl;
+
+import carsharing.dao.FleetReportDao;
+import carsharing.metrics.SqlErrors;
+import carsharing.model.CompanyUtilization;
+import carsharing.service.DatabaseService;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class FleetReportDaoImpl implements FleetReportDao {
+    private final DatabaseService databaseService;
+
+    public FleetReportDaoImpl(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+    }
+
+    @Override
+    public List<CompanyUtilization> getCompanyUtilization() {
+        List<CompanyUtilization> companyUtilizationList = new ArrayList<>();
+        String sqlStatement = "SELECT COMPANY.ID, COMPANY.NAME, COUNT(CAR.ID), " +
+                "COALESCE(SUM(CASE WHEN CAR.AVAILABLE = FALSE THEN 1 ELSE 0 END), 0) " +
+                "FROM COMPANY LEFT JOIN CAR ON CAR.COMPANY_ID = COMPANY.ID " +
+                "GROUP BY COMPANY.ID, COMPANY.NAME ORDER BY COMPANY.ID";
+
+        try (Connection connection = databaseService.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sqlStatement)) {
+            while (resultSet.next()) {
+                companyUtilizationList.add(new CompanyUtilization(resultSet.getInt(1), resultSet.getString(2),
+                        resultSet.getInt(3), resultSet.getInt(4)));
+            }
+        } catch (SQLException e) {
+            SqlErrors.report(e);
+            companyUtilizationList.clear();
+        }
+        return companyUtilizationList;
+    }
+
+    @Override
+    public Optional<CarIdRange> getCarIdRange() {
+        String sqlStatement = "SELECT COALESCE(MIN(ID), 0), COALESCE(MAX(ID), 0), COUNT(*) FROM CAR";
+
+        try (Connection connection = databaseService.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sqlStatement)) {
+            if (resultSet.next()) {
+                return Optional.of(new CarIdRange(resultSet.getInt(1), resultSet.getInt(2), resultSet.getInt(3)));
+            }
+        } catch (SQLException e) {
+            SqlErrors.report(e);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean countCarsByCompany(int afterId, int lastId, CompanyCountConsumer consumer) {
+        boolean ifSuccessful = false;
+        String sqlStatement = "SELECT COMPANY_ID, COUNT(*), SUM(CASE WHEN AVAILABLE = FALSE THEN 1 ELSE 0 END) " +
+                "FROM CAR WHERE ID > ? AND ID <= ? GROUP BY COMPANY_ID";
+
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement)) {
+            preparedStatement.setInt(1, afterId);
+            preparedStatement.setInt(2, lastId);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    consumer.accept(resultSet.getInt(1), resultSet.getInt(2), resultSet.getInt(3));
+                }
+            }
+            ifSuccessful = true;
+        } catch (SQLException e) {
+            SqlErrors.report(e);
+        }
+        return ifSuccessful;
+    }
+}
@@ -0,0 +1,107 @@
+package carsharing.daoimpl;
+
+import carsharing.dao.FleetSnapshotDao;
+import carsharing.metrics.SqlErrors;
+import carsharing.model.DatabaseFingerprint;
+import carsharing.service.DatabaseService;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+
+public class FleetSnapshotDaoImpl implements FleetSnapshotDao {
+    private static final int FETCH_SIZE = 10_000;
+    private final DatabaseService databaseService;
+
+    public FleetSnapshotDaoImpl(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+    }
+
+    @Override
+    public boolean readCompanies(int afterId, NamedRowConsumer consumer) {
+        String sqlStatement = "SELECT ID, NAME FROM COMPANY WHERE ID > ? ORDER BY ID";
+        return read(sqlStatement, afterId, resultSet -> consumer.accept(resultSet.getInt(1), resultSet.getString(2)));
+    }
+
+    @Override
+    public boolean readCars(int afterId, CarRowConsumer consumer) {
+        String sqlStatement = "SELECT ID, NAME, COMPANY_ID FROM CAR WHERE ID > ? ORDER BY ID";
+        return read(sqlStatement, afterId, resultSet ->
+                consumer.accept(resultSet.getInt(1), resultSet.getString(2), resultSet.getInt(3)));
+    }
+
+    @Override
+    public boolean readCustomers(int afterId, NamedRowConsumer consumer) {
+        String sqlStatement = "SELECT ID, NAME FROM CUSTOMER WHERE ID > ? ORDER BY ID";
+        return read(sqlStatement, afterId, resultSet -> consumer.accept(resultSet.getInt(1), resultSet.getString(2)));
+    }
+
+    @Override
+    public boolean readRentedCarIds(IntConsumer consumer) {
+        String sqlStatement = "SELECT ID FROM CAR WHERE AVAILABLE = FALSE";
+        return read(sqlStatement, statement -> { }, resultSet -> consumer.accept(resultSet.getInt(1)));
+    }
+
+    /*
+    The rental checksum term is DatabaseFingerprint.rentalChecksumTerm in SQL. IDs are positive, so the
+    BITXOR of the two products is positive too and MOD gives the same result as Math.floorMod.
+     */
+    @Override
+    public Optional<DatabaseFingerprint> getFingerprint() {
+        String sqlStatement = "SELECT " +
+                "(SELECT COUNT(*) FROM COMPANY), (SELECT COALESCE(MAX(ID), 0) FROM COMPANY), " +
+                "(SELECT COUNT(*) FROM CAR), (SELECT COALESCE(MAX(ID), 0) FROM CAR), " +
+                "(SELECT COUNT(*) FROM CUSTOMER), (SELECT COALESCE(MAX(ID), 0) FROM CUSTOMER), " +
+                "(SELECT COUNT(*) FROM CUSTOMER WHERE RENTED_CAR_ID IS NOT NULL), " +
+                "(SELECT COALESCE(SUM(MOD(BITXOR(CAST(ID AS BIGINT) * 65599, " +
+                "CAST(RENTED_CAR_ID AS BIGINT) * 2654435761), 1000000007)), 0) " +
+                "FROM CUSTOMER WHERE RENTED_CAR_ID IS NOT NULL)";
+
+        try (Connection connection = databaseService.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sqlStatement)) {
+            if (resultSet.next()) {
+                return Optional.of(new DatabaseFingerprint(resultSet.getLong(1), resultSet.getLong(2),
+                        resultSet.getLong(3), resultSet.getLong(4), resultSet.getLong(5), resultSet.getLong(6),
+                        resultSet.getLong(7), resultSet.getLong(8)));
+            }
+        } catch (SQLException e) {
+            SqlErrors.report(e);
+        }
+        return Optional.empty();
+    }
+
+    private interface ParameterBinder {
+        void bind(PreparedStatement preparedStatement) throws SQLException;
+    }
+
+    private interface RowReader {
+        void read(ResultSet resultSet) throws SQLException;
+    }
+
+    private boolean read(String sqlStatement, int afterId, RowReader rowReader) {
+        return read(sqlStatement, preparedStatement -> preparedStatement.setInt(1, afterId), rowReader);
+    }
+
+    private boolean read(String sqlStatement, ParameterBinder parameterBinder, RowReader rowReader) {
+        boolean ifSuccessful = false;
+        try (Connection connection = databaseService.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sqlStatement)) {
+            preparedStatement.setFetchSize(FETCH_SIZE);
+            parameterBinder.bind(preparedStatement);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    rowReader.read(resultSet);
+                }
+            }
+            ifSuccessful = true;
+        } catch (SQLException e) {
+            SqlErrors.report(e);
+        }
+        return ifSuccessful;
+    }
+}
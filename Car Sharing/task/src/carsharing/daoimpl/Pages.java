@@ -0,0 +1,22 @@
+package carsharing.daoimpl;
+
+import carsharing.dao.Page;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Page queries fetch one row more than the page size; that extra row only tells whether a next page exists.
+ */
+final class Pages {
+
+    private Pages() {
+    }
+
+    static <T> Page<T> of(List<T> rows, int pageSize, int afterId, ToIntFunction<T> idOf) {
+        boolean hasNext = rows.size() > pageSize;
+        List<T> items = hasNext ? rows.subList(0, pageSize) : rows;
+        int lastId = items.isEmpty() ? afterId : idOf.applyAsInt(items.get(items.size() - 1));
+        return new Page<>(items, hasNext, lastId);
+    }
+}
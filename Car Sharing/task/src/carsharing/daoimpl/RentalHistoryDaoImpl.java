@@ -0,0 +1,99 @@
+package carsharing.daoimpl;
+
+import carsharing.dao.RentalHistoryDao;
+import carsharing.metrics.SqlErrors;
+import carsharing.model.RentalEvent;
+import carsharing.service.DatabaseService;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RentalHistoryDaoImpl implements RentalHistoryDao {
+    private final DatabaseService databaseService;
+
+    public RentalHistoryDaoImpl(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+    }
+
+    /**
+     * A return whose rent is in the same batch is folded into that rent's INSERT. The remaining returns
+     * close rows written by earlier batches, so their UPDATEs run before the INSERTs of this batch and can
+     * never close a rental that was opened again within it.
+     */
+    @Override
+    public boolean writeEvents(List<RentalEvent> events) {
+        boolean ifSuccessful = false;
+        String insertStatement = "INSERT INTO RENTAL_HISTORY(CUSTOMER_ID, CAR_ID, COMPANY_ID, RENTED_AT, RETURNED_AT) " +
+                "VALUES(?,?,?,?,?)";
+        String updateStatement = "UPDATE RENTAL_HISTORY SET RETURNED_AT = ? " +
+                "WHERE CUSTOMER_ID = ? AND CAR_ID = ? AND RETURNED_AT IS NULL";
+
+        List<RentalEvent[]> rentals = new ArrayList<>();
+        Map<Long, RentalEvent[]> openRentals = new HashMap<>();
+        List<RentalEvent> earlierRentalReturns = new ArrayList<>();
+        for (RentalEvent event : events) {
+            long key = (long) event.customerId() << 32 | event.carId();
+            if (event.type() == RentalEvent.Type.RENTED) {
+                RentalEvent[] rental = {event, null};
+                rentals.add(rental);
+                openRentals.put(key, rental);
+            } else {
+                RentalEvent[] rental = openRentals.remove(key);
+                if (rental != null) {
+                    rental[1] = event;
+                } else {
+                    earlierRentalReturns.add(event);
+                }
+            }
+        }
+
+        try (Connection connection = databaseService.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement update = connection.prepareStatement(updateStatement);
+                 PreparedStatement insert = connection.prepareStatement(insertStatement)) {
+                for (RentalEvent event : earlierRentalReturns) {
+                    update.setTimestamp(1, Timestamp.from(event.occurredAt()));
+                    update.setInt(2, event.customerId());
+                    update.setInt(3, event.carId());
+                    update.addBatch();
+                }
+                if (!earlierRentalReturns.isEmpty()) {
+                    update.executeBatch();
+                }
+
+                for (RentalEvent[] rental : rentals) {
+                    insert.setInt(1, rental[0].customerId());
+                    insert.setInt(2, rental[0].carId());
+                    insert.setInt(3, rental[0].companyId());
+                    insert.setTimestamp(4, Timestamp.from(rental[0].occurredAt()));
+                    if (rental[1] == null) {
+                        insert.setNull(5, Types.TIMESTAMP);
+                    } else {
+                        insert.setTimestamp(5, Timestamp.from(rental[1].occurredAt()));
+                    }
+                    insert.addBatch();
+                }
+                if (!rentals.isEmpty()) {
+                    insert.executeBatch();
+                }
+
+                connection.commit();
+                ifSuccessful = true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            SqlErrors.report(e);
+        }
+
+        return ifSuccessful;
+    }
+}
@@ -0,0 +1,124 @@
+package carsharing.daoimpl;
+
+import carsharing.metrics.SqlErrors;
+import carsharing.service.DatabaseService;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams the rows of a query straight from its open ResultSet instead of collecting them in a list.
+ * <p>
+ * The stream holds a pooled connection until it is closed, so callers use it in try-with-resources.
+ * Rows are only read when the stream asks for the next one, which makes a slow consumer slow the
+ * query down instead of buffering rows. H2 normally builds the whole result before returning it, so
+ * the connection runs with LAZY_QUERY_EXECUTION for as long as the stream is open, and the fetch
+ * size sets how many rows a client/server connection transfers at a time.
+ */
+final class ResultSetStream {
+
+    interface Binder {
+        void bind(PreparedStatement preparedStatement) throws SQLException;
+    }
+
+    interface RowMapper<T> {
+        T map(ResultSet resultSet) throws SQLException;
+    }
+
+    private ResultSetStream() {
+    }
+
+    /**
+     * @return Returns the rows as a stream, or an empty stream if the query cannot be run.
+     * A failure while reading ends the stream early; both are reported like any other SQLException.
+     */
+    static <T> Stream<T> open(DatabaseService databaseService, String sql, Binder binder, int fetchSize,
+                              RowMapper<T> rowMapper) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        try {
+            connection = databaseService.getConnection();
+            setLazyQueryExecution(connection, true);
+            preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setFetchSize(fetchSize);
+            binder.bind(preparedStatement);
+            ResultSet resultSet = preparedStatement.executeQuery();
+
+            Connection openConnection = connection;
+            PreparedStatement openStatement = preparedStatement;
+            return StreamSupport.stream(new RowSpliterator<>(resultSet, rowMapper), false)
+                    .onClose(() -> close(openConnection, openStatement, resultSet));
+        } catch (SQLException e) {
+            SqlErrors.report(e);
+            close(connection, preparedStatement, null);
+            return Stream.empty();
+        }
+    }
+
+    private static void setLazyQueryExecution(Connection connection, boolean lazy) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? 1 : 0));
+        }
+    }
+
+    private static void close(Connection connection, PreparedStatement preparedStatement, ResultSet resultSet) {
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            if (preparedStatement != null) {
+                preparedStatement.close();
+            }
+            if (connection != null) {
+                setLazyQueryExecution(connection, false);
+            }
+        } catch (SQLException e) {
+            SqlErrors.report(e);
+        } finally {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    SqlErrors.report(e);
+                }
+            }
+        }
+    }
+
+    private static final class RowSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+        private final ResultSet resultSet;
+        private final RowMapper<T> rowMapper;
+        private boolean done;
+
+        private RowSpliterator(ResultSet resultSet, RowMapper<T> rowMapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.resultSet = resultSet;
+            this.rowMapper = rowMapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (done) {
+                return false;
+            }
+            try {
+                if (resultSet.next()) {
+                    action.accept(rowMapper.map(resultSet));
+                    return true;
+                }
+            } catch (SQLException e) {
+                SqlErrors.report(e);
+            }
+            done = true;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package carsharing.daoimpl;
+
+import java.sql.SQLException;
+
+/**
+ * SQLSTATE codes the DAO impls react to instead of only printing the stack trace.
+ */
+final class SqlStates {
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String LOCK_TIMEOUT = "HYT00";
+    private static final String DEADLOCK = "40001";
+    private static final String CONCURRENT_UPDATE = "90131";
+
+    private SqlStates() {
+    }
+
+    /**
+     * @param e
+     * @return Returns true if the statement failed because a UNIQUE or PRIMARY KEY value already exists.
+     */
+    static boolean isDuplicateKey(SQLException e) {
+        return UNIQUE_VIOLATION.equals(e.getSQLState());
+    }
+
+    /**
+     * @param e
+     * @return Returns true if the transaction lost a row lock to another session and can simply be run again.
+     */
+    static boolean isRetryableConflict(SQLException e) {
+        String sqlState = e.getSQLState();
+        return LOCK_TIMEOUT.equals(sqlState) || DEADLOCK.equals(sqlState) || CONCURRENT_UPDATE.equals(sqlState);
+    }
+}
@@ -0,0 +1,169 @@
+package carsharing.history;
+
+import carsharing.dao.RentalHistoryDao;
+import carsharing.model.RentalEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Writes rental events to RENTAL_HISTORY on a background thread, so renting and returning a car
+ * never wait for the history INSERT.
+ * <p>
+ * Events go into a bounded queue. The worker writes them in batches of up to batchSize events,
+ * or whatever arrived within flushIntervalMillis of the first event of a batch. When the queue is full,
+ * recording an event blocks until the worker catches up, so no event is dropped. On close, and from
+ * a shutdown hook if the JVM exits without close, every queued event is written before returning.
+ */
+public class RentalHistoryWriter implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+
+    private final RentalHistoryDao rentalHistoryDao;
+    private final BlockingQueue<RentalEvent> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Thread worker;
+    private final Thread shutdownHook;
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private final LongAdder writtenEvents = new LongAdder();
+    private final LongAdder failedEvents = new LongAdder();
+    private volatile boolean closed;
+
+    public RentalHistoryWriter(RentalHistoryDao rentalHistoryDao) {
+        this(rentalHistoryDao, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    public RentalHistoryWriter(RentalHistoryDao rentalHistoryDao, int capacity, int batchSize, long flushIntervalMillis) {
+        if (capacity < 1 || batchSize < 1 || flushIntervalMillis < 1) {
+            throw new IllegalArgumentException("capacity, batchSize and flushIntervalMillis must be at least 1");
+        }
+        this.rentalHistoryDao = rentalHistoryDao;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+
+        worker = new Thread(this::writeUntilClosed, "rental-history-writer");
+        worker.setDaemon(true);
+        worker.start();
+
+        shutdownHook = new Thread(this::drain, "rental-history-drain");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * @param event Queues the event. Blocks while the queue is full. After close the event is written
+     *              synchronously instead.
+     */
+    public void record(RentalEvent event) {
+        closeLock.readLock().lock();
+        try {
+            if (!closed) {
+                queue.put(event);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        write(new ArrayList<>(List.of(event)));
+    }
+
+    public long getWrittenEvents() {
+        return writtenEvents.sum();
+    }
+
+    public long getFailedEvents() {
+        return failedEvents.sum();
+    }
+
+    public int getQueuedEvents() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting queued events and waits until every queued event has been written.
+     */
+    @Override
+    public void close() {
+        drain();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ignored) {
+            // the JVM is already shutting down and the hook is running or has run
+        }
+    }
+
+    private void drain() {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+
+        try {
+            worker.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeQueued();
+    }
+
+    private void writeUntilClosed() {
+        List<RentalEvent> batch = new ArrayList<>(batchSize);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                RentalEvent first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch, System.nanoTime() + flushIntervalNanos);
+                write(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fillBatch(List<RentalEvent> batch, long flushAt) throws InterruptedException {
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = flushAt - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || closed) {
+                return;
+            }
+            RentalEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private synchronized void writeQueued() {
+        List<RentalEvent> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+        }
+    }
+
+    private synchronized void write(List<RentalEvent> batch) {
+        if (rentalHistoryDao.writeEvents(batch)) {
+            writtenEvents.add(batch.size());
+        } else {
+            failedEvents.add(batch.size());
+        }
+        batch.clear();
+    }
+}
@@ -0,0 +1,271 @@
+package carsharing.http;
+
+import carsharing.concurrent.ThreadSupport;
+import carsharing.dao.Page;
+import carsharing.dao.RentalResult;
+import carsharing.metrics.SqlErrors;
+import carsharing.model.Car;
+import carsharing.model.Company;
+import carsharing.model.Customer;
+import carsharing.service.CarService;
+import carsharing.service.CompanyService;
+import carsharing.service.CustomerService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * JSON front end for kiosk and mobile clients, served by the JDK HTTP server on top of the same
+ * services as the console menus.
+ * <pre>
+ * GET  /companies?afterId=0&amp;pageSize=20        page of companies
+ * GET  /companies/{id}/cars?afterId=0&amp;pageSize=20 page of the company's available cars
+ * GET  /customers?afterId=0&amp;pageSize=20        page of customers
+ * GET  /customers/{id}                         one customer
+ * GET  /customers/{id}/car                     the customer's rented car
+ * POST /customers/{id}/rent?carId={carId}      rent a car
+ * POST /customers/{id}/return                  return the rented car
+ * </pre>
+ * Every request gets its own thread (a virtual thread where the JVM has them), so a slow request never
+ * holds up the others; the Connection Pool is what bounds the work done against the database.
+ * A lost race for a car or a rent while already renting answers 409, a database failure 503.
+ */
+public class HttpApiServer implements AutoCloseable {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAXIMUM_PAGE_SIZE = 500;
+    private static final int BACKLOG = 1024;
+    private static final int STOP_DELAY_SECONDS = 1;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final CompanyService companyService;
+    private final CarService carService;
+    private final CustomerService customerService;
+
+    /**
+     * @param port            Port to listen on, 0 picks a free one.
+     * @param companyService
+     * @param carService
+     * @param customerService The services must share one Availability Index, as the console menus do.
+     */
+    public HttpApiServer(int port, CompanyService companyService, CarService carService,
+                         CustomerService customerService) throws IOException {
+        this.companyService = companyService;
+        this.carService = carService;
+        this.customerService = customerService;
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        executor = ThreadSupport.newThreadPerTaskExecutor("http-request");
+        server.setExecutor(executor);
+        server.createContext("/companies", this::handleCompanies);
+        server.createContext("/customers", this::handleCustomers);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests and gives the ones in progress a moment to finish.
+     */
+    @Override
+    public void close() {
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+    }
+
+    private void handleCompanies(HttpExchange exchange) throws IOException {
+        handle(exchange, () -> {
+            String[] path = pathSegments(exchange);
+            if (!path[0].equals("companies")) {
+                // contexts match by prefix, so /companiesXYZ also ends up here
+                return Response.notFound("No such resource");
+            }
+            Map<String, String> query = query(exchange);
+            requireMethod(exchange, "GET");
+
+            if (path.length == 1) {
+                Page<Company> page = companyService.getCompanyPage(afterId(query), pageSize(query));
+                return new Response(200, Json.page(page, Json::company));
+            }
+            if (path.length == 3 && path[2].equals("cars")) {
+                Optional<Company> company = companyService.findCompany(Integer.parseInt(path[1]));
+                if (company.isEmpty()) {
+                    return Response.notFound("No company " + path[1]);
+                }
+                Page<Car> page = carService.getCarPage(company.get(), afterId(query), pageSize(query));
+                return new Response(200, Json.page(page, Json::car));
+            }
+            return Response.notFound("No such resource");
+        });
+    }
+
+    private void handleCustomers(HttpExchange exchange) throws IOException {
+        handle(exchange, () -> {
+            String[] path = pathSegments(exchange);
+            if (!path[0].equals("customers")) {
+                return Response.notFound("No such resource");
+            }
+            Map<String, String> query = query(exchange);
+
+            if (path.length == 1) {
+                requireMethod(exchange, "GET");
+                Page<Customer> page = customerService.getCustomerPage(afterId(query), pageSize(query));
+                return new Response(200, Json.page(page, Json::customer));
+            }
+
+            Optional<Customer> found = customerService.findCustomer(Integer.parseInt(path[1]));
+            if (found.isEmpty()) {
+                return Response.notFound("No customer " + path[1]);
+            }
+            Customer customer = found.get();
+
+            if (path.length == 2) {
+                requireMethod(exchange, "GET");
+                return new Response(200, Json.customer(customer));
+            }
+            if (path.length == 3 && path[2].equals("car")) {
+                requireMethod(exchange, "GET");
+                if (!customerService.isValidRentedCarId(customer)) {
+                    return Response.notFound("Customer " + customer.getId() + " is not renting a car");
+                }
+                return new Response(200, Json.car(carService.getCar(customer)));
+            }
+            if (path.length == 3 && path[2].equals("rent")) {
+                requireMethod(exchange, "POST");
+                String carId = query.get("carId");
+                if (carId == null) {
+                    return Response.badRequest("carId is required");
+                }
+                Optional<Car> car = carService.findCar(Integer.parseInt(carId));
+                if (car.isEmpty()) {
+                    return Response.notFound("No car " + carId);
+                }
+                return rental(customerService.rentCustomerCar(customer, car.get()), customer);
+            }
+            if (path.length == 3 && path[2].equals("return")) {
+                requireMethod(exchange, "POST");
+                return rental(customerService.returnCustomerCar(customer), customer);
+            }
+            return Response.notFound("No such resource");
+        });
+    }
+
+    private static Response rental(RentalResult result, Customer customer) {
+        int status = switch (result) {
+            case RENTED, RETURNED -> 200;
+            case CAR_TAKEN, ALREADY_RENTING, NOT_RENTING -> 409;
+            default -> 503;
+        };
+        return new Response(status, Json.rental(result.name(), customer));
+    }
+
+    private interface Route {
+        Response respond() throws IOException;
+    }
+
+    /**
+     * Runs the route and writes its response. Malformed numbers answer 400 and entities that do not exist 404,
+     * so a client never sees the connection dropped. The DAOs report a failed query and return nothing, so a
+     * 404 is turned into a 503 when a query failed on this thread while the route ran.
+     */
+    private static void handle(HttpExchange exchange, Route route) throws IOException {
+        long sqlErrorsBefore = SqlErrors.getErrorsOnThisThread();
+        Response response;
+        try {
+            response = route.respond();
+        } catch (MethodNotAllowedException e) {
+            response = new Response(405, Json.error("Use " + e.getMessage()));
+            exchange.getResponseHeaders().set("Allow", e.getMessage());
+        } catch (NumberFormatException e) {
+            response = Response.badRequest("Not a number: " + e.getMessage());
+        } catch (NoSuchElementException e) {
+            response = Response.notFound("Not found");
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            response = new Response(500, Json.error("Internal error"));
+        }
+        if (response.status == 404 && SqlErrors.getErrorsOnThisThread() != sqlErrorsBefore) {
+            response = new Response(503, Json.error("Lookup failed"));
+        }
+
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw new MethodNotAllowedException(method);
+        }
+    }
+
+    private static String[] pathSegments(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        return path.replaceAll("^/+|/+$", "").split("/+");
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int separator = parameter.indexOf('=');
+                if (separator > 0) {
+                    parameters.put(parameter.substring(0, separator), parameter.substring(separator + 1));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private static int afterId(Map<String, String> query) {
+        return Math.max(0, Integer.parseInt(query.getOrDefault("afterId", "0")));
+    }
+
+    private static int pageSize(Map<String, String> query) {
+        int pageSize = Integer.parseInt(query.getOrDefault("pageSize", String.valueOf(DEFAULT_PAGE_SIZE)));
+        return Math.min(Math.max(pageSize, 1), MAXIMUM_PAGE_SIZE);
+    }
+
+    private static class Response {
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response notFound(String message) {
+            return new Response(404, Json.error(message));
+        }
+
+        static Response badRequest(String message) {
+            return new Response(400, Json.error(message));
+        }
+    }
+
+    private static class MethodNotAllowedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        MethodNotAllowedException(String allowedMethod) {
+            super(allowedMethod);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package carsharing.http;
+
+import carsharing.dao.Page;
+import carsharing.model.Car;
+import carsharing.model.Company;
+import carsharing.model.Customer;
+
+import java.util.function.Function;
+
+/**
+ * Writes the few JSON shapes the HTTP API returns. The models are flat, so a StringBuilder is enough
+ * and no JSON library is needed.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    static String company(Company company) {
+        return "{\"id\":" + company.getId() + ",\"name\":" + quote(company.getName()) + "}";
+    }
+
+    static String car(Car car) {
+        return "{\"id\":" + car.getId() + ",\"name\":" + quote(car.getName()) +
+                ",\"companyId\":" + car.getCompanyId() + "}";
+    }
+
+    static String customer(Customer customer) {
+        String rentedCarId = customer.getRentedCarId() == 0 ? "null" : String.valueOf(customer.getRentedCarId());
+        return "{\"id\":" + customer.getId() + ",\"name\":" + quote(customer.getName()) +
+                ",\"rentedCarId\":" + rentedCarId + "}";
+    }
+
+    /**
+     * @param page
+     * @param item Writes one item of the page.
+     * @return Returns the items together with the key to request the next page with, which is null on the last page.
+     */
+    static <T> String page(Page<T> page, Function<T, String> item) {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < page.getItems().size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(item.apply(page.getItems().get(i)));
+        }
+        json.append("],\"nextAfterId\":").append(page.hasNext() ? String.valueOf(page.getLastId()) : "null");
+        return json.append('}').toString();
+    }
+
+    static String rental(String result, Customer customer) {
+        return "{\"result\":" + quote(result) + ",\"customer\":" + customer(customer) + "}";
+    }
+
+    static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    static String quote(String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+}
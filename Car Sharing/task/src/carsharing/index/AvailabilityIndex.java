@@ -0,0 +1,304 @@
+package carsharing.index;
+
+import carsharing.dao.CarDao;
+import carsharing.dao.CustomerDao;
+import carsharing.dao.Page;
+import carsharing.model.Car;
+import carsharing.model.Customer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * In-process index of which cars are free, so the car lists of a company do not need a query.
+ * <p>
+ * Each company has a BitSet with a bit set for every free car ID, and a primitive map holds the
+ * customer renting each car. Car names and companies are kept in arrays indexed by car ID, so a
+ * listing only creates the Car objects of the rows it returns. The index is built once from the DAOs
+ * and kept up to date by the services on add, rent and return; the database stays the source of truth
+ * for the rental itself.
+ */
+public class AvailabilityIndex {
+
+    public interface CarVisitor {
+        /**
+         * @param renterId ID of the customer renting the car, or 0 if it is free.
+         */
+        void visit(int carId, int companyId, String name, int renterId);
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private IntIntMap renterByCar;
+    private long modificationCount;
+    private BitSet[] freeCarsByCompany = new BitSet[16];
+    private String[] carNames = new String[16];
+    private int[] carCompanies = new int[16];
+
+    public AvailabilityIndex() {
+        renterByCar = new IntIntMap(16);
+    }
+
+    /**
+     * @param carDao
+     * @param customerDao
+     * @return Builds the index from a stream of the cars and a stream of the customers renting one,
+     * so only the rows being read are held in memory.
+     */
+    public static AvailabilityIndex build(CarDao carDao, CustomerDao customerDao) {
+        AvailabilityIndex index = new AvailabilityIndex();
+        try (Stream<Car> cars = carDao.streamAllCars()) {
+            cars.forEach(index::addCar);
+        }
+        try (Stream<Customer> renters = customerDao.streamRenters()) {
+            renters.forEach(customer -> index.markRented(customer.getRentedCarId(), customer.getId()));
+        }
+        return index;
+    }
+
+    /**
+     * Adds a car that was just created. New cars are free.
+     */
+    public void addCar(Car car) {
+        lock.writeLock().lock();
+        try {
+            int carId = car.getId();
+            if (carId >= carNames.length) {
+                int length = Math.max(carId + 1, carNames.length * 2);
+                carNames = Arrays.copyOf(carNames, length);
+                carCompanies = Arrays.copyOf(carCompanies, length);
+            }
+            carNames[carId] = car.getName();
+            carCompanies[carId] = car.getCompanyId();
+            if (renterByCar.get(carId) == 0) {
+                freeCars(car.getCompanyId()).set(carId);
+            }
+            modificationCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markRented(int carId, int customerId) {
+        lock.writeLock().lock();
+        try {
+            renterByCar.put(carId, customerId);
+            if (isKnown(carId)) {
+                freeCars(carCompanies[carId]).clear(carId);
+            }
+            modificationCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Takes a car off the free list that another session rented, when the renter is not known.
+     */
+    public void markTaken(int carId) {
+        lock.writeLock().lock();
+        try {
+            if (isKnown(carId)) {
+                freeCars(carCompanies[carId]).clear(carId);
+            }
+            modificationCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markReturned(int carId) {
+        lock.writeLock().lock();
+        try {
+            renterByCar.remove(carId);
+            if (isKnown(carId)) {
+                freeCars(carCompanies[carId]).set(carId);
+            }
+            modificationCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param carId
+     * @return Returns the ID of the customer renting the car, or 0 if it is free.
+     */
+    public int getRenter(int carId) {
+        lock.readLock().lock();
+        try {
+            return renterByCar.get(carId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param carId
+     * @return Returns the ID of the company the car belongs to, or 0 if the car is not in the index.
+     */
+    public int getCompanyId(int carId) {
+        lock.readLock().lock();
+        try {
+            return isKnown(carId) ? carCompanies[carId] : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isFree(int carId) {
+        lock.readLock().lock();
+        try {
+            BitSet freeCars = isKnown(carId) ? findFreeCars(carCompanies[carId]) : null;
+            return freeCars != null && freeCars.get(carId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countFreeCars(int companyId) {
+        lock.readLock().lock();
+        try {
+            BitSet freeCars = findFreeCars(companyId);
+            return freeCars == null ? 0 : freeCars.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param companyId
+     * @return Returns every free car of the company, ordered by ID.
+     */
+    public List<Car> getFreeCars(int companyId) {
+        return getFreeCarPage(companyId, 0, Integer.MAX_VALUE).getItems();
+    }
+
+    /**
+     * @param companyId
+     * @param afterId
+     * @param pageSize
+     * @return Returns up to pageSize free cars of the company with an ID greater than afterId, ordered by ID.
+     */
+    public Page<Car> getFreeCarPage(int companyId, int afterId, int pageSize) {
+        lock.readLock().lock();
+        try {
+            List<Car> cars = new ArrayList<>();
+            BitSet freeCars = findFreeCars(companyId);
+            if (freeCars == null) {
+                return new Page<>(cars, false, afterId);
+            }
+
+            int carId = freeCars.nextSetBit(afterId + 1);
+            while (carId >= 0 && cars.size() < pageSize) {
+                Car car = new Car(carNames[carId], companyId);
+                car.setId(carId);
+                cars.add(car);
+                carId = carId == Integer.MAX_VALUE ? -1 : freeCars.nextSetBit(carId + 1);
+            }
+            int lastId = cars.isEmpty() ? afterId : cars.get(cars.size() - 1).getId();
+            return new Page<>(cars, carId >= 0, lastId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param visitor Called for every car in ID order, with the read lock held.
+     */
+    public void forEachCar(CarVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (int carId = 1; carId < carNames.length; carId++) {
+                if (carNames[carId] != null) {
+                    visitor.visit(carId, carCompanies[carId], carNames[carId], renterByCar.get(carId));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Returns a counter that goes up with every change made through this index.
+     */
+    public long getModificationCount() {
+        lock.readLock().lock();
+        try {
+            return modificationCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param other                     Index rebuilt from the database, which is not used afterwards.
+     * @param expectedModificationCount Value of getModificationCount() read before the other index was built.
+     * @return Takes over the contents of the other index and returns true, unless this index changed since
+     * expectedModificationCount was read. A rebuild that started before a rent or return would lose it,
+     * so the caller rebuilds again in that case.
+     */
+    public boolean replaceWith(AvailabilityIndex other, long expectedModificationCount) {
+        lock.writeLock().lock();
+        try {
+            if (modificationCount != expectedModificationCount) {
+                return false;
+            }
+            takeOver(other);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param rebuild Builds a new index from the database.
+     *                Rebuilds the index while holding the write lock, so no rent or return can happen in between
+     *                and the replacement cannot fail. Car lists wait until it is done, so this is the fallback
+     *                for when replaceWith keeps failing.
+     */
+    public void replaceWith(Supplier<AvailabilityIndex> rebuild) {
+        lock.writeLock().lock();
+        try {
+            takeOver(rebuild.get());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void takeOver(AvailabilityIndex other) {
+        other.lock.readLock().lock();
+        try {
+            renterByCar = other.renterByCar;
+            freeCarsByCompany = other.freeCarsByCompany;
+            carNames = other.carNames;
+            carCompanies = other.carCompanies;
+        } finally {
+            other.lock.readLock().unlock();
+        }
+        modificationCount++;
+    }
+
+    private boolean isKnown(int carId) {
+        return carId > 0 && carId < carNames.length && carNames[carId] != null;
+    }
+
+    private BitSet findFreeCars(int companyId) {
+        return companyId >= 0 && companyId < freeCarsByCompany.length ? freeCarsByCompany[companyId] : null;
+    }
+
+    private BitSet freeCars(int companyId) {
+        if (companyId >= freeCarsByCompany.length) {
+            freeCarsByCompany = Arrays.copyOf(freeCarsByCompany, Math.max(companyId + 1, freeCarsByCompany.length * 2));
+        }
+        if (freeCarsByCompany[companyId] == null) {
+            freeCarsByCompany[companyId] = new BitSet();
+        }
+        return freeCarsByCompany[companyId];
+    }
+}
@@ -0,0 +1,227 @@
+package carsharing.index;
+
+import carsharing.model.Car;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process trigram index of car names for prefix and typo-tolerant search.
+ * <p>
+ * Names are lower-cased and split into words; each word is padded ("  venue ") and cut into trigrams,
+ * and every trigram keeps, per company, the list of car IDs whose name contains it. A query is cut the same way.
+ * A car is a match when its name contains at least half of the query's trigrams, so a car can only
+ * match if it is in one of the rarest lists, and only those lists are read. Each candidate is then
+ * checked against its own name. Matches are ranked: the exact name, then names starting with the query,
+ * then names with a word starting with it, then by the share of query trigrams found and the closeness
+ * of the name's length. Cars are never removed, since no DAO deletes them.
+ */
+public class CarSearchIndex {
+    private static final double MINIMUM_MATCH = 0.5;
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::rank).reversed()
+            .thenComparing(Comparator.comparingInt(Match::shared).reversed())
+            .thenComparingInt(Match::lengthDifference)
+            .thenComparing(Match::name)
+            .thenComparingInt(Match::carId);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Map<Long, Postings>> postingsByCompany = new HashMap<>();
+    private String[] carNames = new String[16];
+    private int size;
+
+    /**
+     * Adds a car that was just created. Adding a car that is already in the index does nothing.
+     */
+    public void addCar(Car car) {
+        int carId = car.getId();
+        long[] trigrams = trigrams(car.getName());
+        lock.writeLock().lock();
+        try {
+            if (carId <= 0 || carId < carNames.length && carNames[carId] != null) {
+                return;
+            }
+            if (carId >= carNames.length) {
+                int length = Math.max(carId + 1, carNames.length * 2);
+                carNames = Arrays.copyOf(carNames, length);
+            }
+            carNames[carId] = car.getName();
+            Map<Long, Postings> postingsByTrigram =
+                    postingsByCompany.computeIfAbsent(car.getCompanyId(), key -> new HashMap<>());
+            for (long trigram : trigrams) {
+                postingsByTrigram.computeIfAbsent(trigram, key -> new Postings()).add(carId);
+            }
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param query     Text typed by the user. Case and extra whitespace are ignored.
+     * @param companyId Only cars of this company are returned.
+     * @param carFilter Only cars whose ID passes the filter are returned, for example only free cars.
+     * @param limit     Maximum number of cars returned.
+     * @return Returns the best matching cars, best first. Returns an empty list for a blank query.
+     * Only the best limit matches are kept while the candidates are checked.
+     */
+    public List<Car> search(String query, int companyId, IntPredicate carFilter, int limit) {
+        String normalizedQuery = query.strip().replaceAll("\\s+", " ");
+        long[] queryTrigrams = trigrams(normalizedQuery);
+        if (queryTrigrams.length == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        int minimumShared = (int) Math.ceil(queryTrigrams.length * MINIMUM_MATCH);
+
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        lock.readLock().lock();
+        try {
+            Map<Long, Postings> postingsByTrigram = postingsByCompany.getOrDefault(companyId, Map.of());
+            IntIntMap checked = new IntIntMap(64);
+            for (Postings postings : rarestPostings(postingsByTrigram, queryTrigrams,
+                    queryTrigrams.length - minimumShared + 1)) {
+                for (int i = 0; i < postings.size; i++) {
+                    int carId = postings.carIds[i];
+                    if (checked.get(carId) != 0) {
+                        continue;
+                    }
+                    checked.put(carId, 1);
+                    if (!carFilter.test(carId)) {
+                        continue;
+                    }
+                    Match match = score(carId, normalizedQuery, queryTrigrams);
+                    if (match.shared >= minimumShared) {
+                        best.add(match);
+                        if (best.size() > limit) {
+                            best.poll();
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(RANKING);
+        List<Car> cars = new ArrayList<>();
+        for (Match match : matches) {
+            Car car = new Car(match.name, companyId);
+            car.setId(match.carId);
+            cars.add(car);
+        }
+        return cars;
+    }
+
+    /*
+    A car sharing minimumShared of the q query trigrams misses at most q - minimumShared of them,
+    so it is in at least one of any q - minimumShared + 1 lists. Picking the shortest ones keeps
+    common trigrams such as "  m" of "Model ..." from being read at all.
+     */
+    private static List<Postings> rarestPostings(Map<Long, Postings> postingsByTrigram, long[] queryTrigrams,
+                                                 int count) {
+        List<Postings> postingsList = new ArrayList<>();
+        for (long trigram : queryTrigrams) {
+            Postings postings = postingsByTrigram.get(trigram);
+            postingsList.add(postings == null ? Postings.EMPTY : postings);
+        }
+        postingsList.sort(Comparator.comparingInt(postings -> postings.size));
+        return postingsList.subList(0, Math.min(count, postingsList.size()));
+    }
+
+    private Match score(int carId, String normalizedQuery, long[] queryTrigrams) {
+        String name = carNames[carId];
+        long[] nameTrigrams = trigrams(name);
+        int shared = 0;
+        for (int q = 0, n = 0; q < queryTrigrams.length && n < nameTrigrams.length; ) {
+            if (queryTrigrams[q] == nameTrigrams[n]) {
+                shared++;
+                q++;
+                n++;
+            } else if (queryTrigrams[q] < nameTrigrams[n]) {
+                q++;
+            } else {
+                n++;
+            }
+        }
+
+        int rank = 0;
+        if (name.regionMatches(true, 0, normalizedQuery, 0, normalizedQuery.length())) {
+            rank = name.length() == normalizedQuery.length() ? 3 : 2;
+        } else {
+            for (int i = 1; i < name.length() && rank == 0; i++) {
+                if (Character.isWhitespace(name.charAt(i - 1))
+                        && name.regionMatches(true, i, normalizedQuery, 0, normalizedQuery.length())) {
+                    rank = 1;
+                }
+            }
+        }
+        return new Match(carId, name, rank, shared, Math.abs(name.length() - normalizedQuery.length()));
+    }
+
+    /**
+     * @return Returns the distinct trigrams of every lower-cased word of the text, sorted. Each word is
+     * padded with two spaces in front and one behind, and each trigram packs its three chars into a long.
+     */
+    private static long[] trigrams(String text) {
+        long[] trigrams = new long[2 * text.length() + 1];
+        int count = 0;
+        long window = ' ' << 16 | ' ';
+        boolean inWord = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? Character.toLowerCase(text.charAt(i)) : ' ';
+            if (Character.isWhitespace(c)) {
+                if (inWord) {
+                    trigrams[count++] = (window << 16 | ' ') & 0xFFFF_FFFF_FFFFL;
+                    window = ' ' << 16 | ' ';
+                    inWord = false;
+                }
+                continue;
+            }
+            window = (window << 16 | c) & 0xFFFF_FFFF_FFFFL;
+            trigrams[count++] = window;
+            inWord = true;
+        }
+        long[] sorted = Arrays.copyOf(trigrams, count);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    private static final class Postings {
+        private static final Postings EMPTY = new Postings();
+        private int[] carIds = new int[4];
+        private int size;
+
+        private void add(int carId) {
+            if (size == carIds.length) {
+                carIds = Arrays.copyOf(carIds, size * 2);
+            }
+            carIds[size++] = carId;
+        }
+    }
+
+    private record Match(int carId, String name, int rank, int shared, int lengthDifference) {
+    }
+}
@@ -0,0 +1,106 @@
+package carsharing.index;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from int to int, so no key or value is ever boxed.
+ * Keys must be positive (they are table IDs); 0 marks an empty slot and is returned for missing keys.
+ * Not thread-safe; AvailabilityIndex guards it with its lock.
+ */
+class IntIntMap {
+    private static final int EMPTY = 0;
+    private static final double MAX_LOAD = 0.5;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    int get(int key) {
+        int slot = findSlot(keys, key);
+        return keys[slot] == key ? values[slot] : EMPTY;
+    }
+
+    void put(int key, int value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("key must be positive: " + key);
+        }
+        int slot = findSlot(keys, key);
+        if (keys[slot] != key) {
+            if (size + 1 > keys.length * MAX_LOAD) {
+                resize();
+                slot = findSlot(keys, key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Removes the key and shifts back the entries that probed past it, so lookups never need tombstones.
+     */
+    void remove(int key) {
+        int mask = keys.length - 1;
+        int slot = findSlot(keys, key);
+        if (keys[slot] != key) {
+            return;
+        }
+        size--;
+        int next = (slot + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[slot] = EMPTY;
+        values[slot] = EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, EMPTY);
+        size = 0;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = findSlot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int findSlot(int[] keys, int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,97 @@
+package carsharing.manager;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+/**
+ * Console output of the menus. Lines are buffered and only written when {@link #flush()} is called,
+ * which the menus do once per command, before waiting for the next input.
+ * <p>
+ * Prompts (menu options, selection lists, "Enter the ... name:") are left out when the menus are driven
+ * by a script. In machine-readable mode every result is a single tab-separated record instead:
+ * <pre>
+ * OK      The company was created!
+ * ERROR   The car already exists in the database.
+ * ITEM    1   Hyundai Venue
+ * </pre>
+ */
+class ConsoleOutput {
+    private final PrintWriter writer;
+    private final boolean showPrompts;
+    private final boolean machineReadable;
+
+    ConsoleOutput(OutputStream outputStream, boolean showPrompts, boolean machineReadable) {
+        this.writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(outputStream, Charset.defaultCharset())));
+        this.showPrompts = showPrompts;
+        this.machineReadable = machineReadable;
+    }
+
+    /**
+     * @param text Printed as is, unless prompts are turned off.
+     */
+    void prompt(String text) {
+        if (showPrompts) {
+            writer.println(text);
+        }
+    }
+
+    /**
+     * @param text Printed as is, left out of machine-readable output.
+     */
+    void line(String text) {
+        if (!machineReadable) {
+            writer.println(text);
+        }
+    }
+
+    void ok(String message) {
+        if (machineReadable) {
+            record("OK", message);
+        } else {
+            writer.println(message);
+        }
+    }
+
+    /**
+     * @param message Printed as is. The machine-readable record drops the "Error: " prefix.
+     */
+    void error(String message) {
+        if (machineReadable) {
+            record("ERROR", message.replaceFirst("^Error: ", ""));
+        } else {
+            writer.println(message);
+        }
+    }
+
+    void item(int number, String name) {
+        if (machineReadable) {
+            record("ITEM", String.valueOf(number), name);
+        } else {
+            writer.println(number + ". " + name);
+        }
+    }
+
+    /**
+     * @param fields Written as one tab-separated line in machine-readable mode only.
+     */
+    void record(String... fields) {
+        if (!machineReadable) {
+            return;
+        }
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append('\t');
+            }
+            line.append(fields[i].strip().replaceAll("\\s+", " "));
+        }
+        writer.println(line);
+    }
+
+    void flush() {
+        writer.flush();
+    }
+}
@@ -1,40 +1,97 @@
 package carsharing.manager;
 
+import carsharing.analytics.FleetSnapshot;
+import carsharing.cache.EntityCache;
+import carsharing.concurrent.Lazy;
+import carsharing.dao.Page;
+import carsharing.dao.RentalHistoryDao;
+import carsharing.daoimpl.CarDaoImpl;
+import carsharing.daoimpl.CustomerDaoImpl;
+import carsharing.daoimpl.FleetSnapshotDaoImpl;
+import carsharing.daoimpl.RentalHistoryDaoImpl;
+import carsharing.history.RentalHistoryWriter;
+import carsharing.index.AvailabilityIndex;
+import carsharing.metrics.DaoMetrics;
+import carsharing.metrics.StartupTiming;
+import carsharing.migration.SchemaMigrator;
 import carsharing.model.Car;
 import carsharing.model.Company;
+import carsharing.model.CompanyUtilization;
 import carsharing.model.Customer;
+import carsharing.pool.PoolConfig;
 import carsharing.service.CarService;
 import carsharing.service.CompanyService;
 import carsharing.service.CustomerService;
 import carsharing.service.DatabaseService;
+import carsharing.service.FleetService;
+import carsharing.snapshot.WarmStart;
+import carsharing.snapshot.WarmStartSnapshot;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.sql.Connection;
-import java.util.Comparator;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
-public class DatabaseManager {
+public class DatabaseManager implements AutoCloseable {
     private static final String DEFAULT_DIRECTORY_PATH = "default";
-    private final BufferedReader bufferedReader;
-    private final CompanyService companyService;
-    private final CarService carService;
-    private final CustomerService customerService;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final String NEXT_PAGE = "n";
+    private static final String PREVIOUS_PAGE = "p";
+    private static final String SEARCH = "s";
+    private static final String ID_PREFIX = "#";
+    private BufferedReader bufferedReader;
+    private ConsoleOutput output;
+    private final DatabaseService databaseService;
+    private final Lazy<AvailabilityIndex> availabilityIndex;
+    private final Lazy<CompanyService> companyService;
+    private final Lazy<CarService> carService;
+    private final Lazy<CustomerService> customerService;
+    private final Lazy<FleetService> fleetService;
+    private final Lazy<RentalHistoryWriter> rentalHistoryWriter;
+    private volatile AvailabilityIndex warmStartIndex;
+    private WarmStart warmStart;
+    private int pageSize = DEFAULT_PAGE_SIZE;
 
     /**
      * @param databaseName Constructor to set up environment using JDBC to connect to given database.
      *                     Database URL is given using Command Line Argument or given a default URL.
      *                     Buffered Reader is used to handle all console inputs.
-     *                     Database Service will handle connections to database and can be configured to handle multiple instances.
-     *                     This particular application uses a single connection for the table services.
+     *                     Database Service will handle connections to database through a Connection Pool.
+     *                     Each table service borrows a connection per operation and returns it afterwards.
+     *                     The Schema Migrator creates or upgrades the tables and indexes before the services start.
+     *                     The services are only created when a menu first needs them, so the main menu is shown
+     *                     as soon as the schema is up to date.
+     *                     The Availability Index of free cars is built once and shared by the Car and Customer Services.
+     *                     Rents and returns are written to the Rental History table in the background.
+     *                     Every DAO call is measured and published as a JMX MBean under the "carsharing" domain.
      *                     <p>
      *                     The Company Table is handled by the Company Service.
      *                     The Car Table is handled by the Car Service.
      *                     The Customer Table is handled by the Customer Service.
+     *                     Fleet-wide analysis over all three tables is handled by the Fleet Service.
      */
     public DatabaseManager(String databaseName) {
+        this(databaseName, new PoolConfig());
+    }
+
+    /**
+     * @param databaseName
+     * @param poolConfig   Same as above, with the minimum/maximum size and timeouts of the Connection Pool given.
+     */
+    public DatabaseManager(String databaseName, PoolConfig poolConfig) {
+        this(databaseName, poolConfig, EntityCache.DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param databaseName
+     * @param poolConfig
+     * @param cacheMaximumSize Same as above, with the maximum number of cached lookups per table service given.
+     */
+    public DatabaseManager(String databaseName, PoolConfig poolConfig, int cacheMaximumSize) {
         String DB_URL = "jdbc:h2:./src/carsharing/db/";
 
         if (databaseName == null || databaseName.length() == 0) {
@@ -43,20 +100,121 @@ public class DatabaseManager {
             DB_URL += databaseName;
         }
         bufferedReader = new BufferedReader(new InputStreamReader(System.in));
+        output = new ConsoleOutput(System.out, true, false);
+
+        databaseService = new DatabaseService(DB_URL, poolConfig);
+        StartupTiming.mark("connection pool");
+        new SchemaMigrator(databaseService).migrate();
+        StartupTiming.mark("schema bootstrap");
+
+        availabilityIndex = new Lazy<>(() -> warmStartIndex != null ? warmStartIndex
+                : StartupTiming.measure("availability index", this::buildAvailabilityIndex));
+        companyService = new Lazy<>(() -> StartupTiming.measure("company service", () ->
+                new CompanyService(databaseService, cacheMaximumSize)));
+        carService = new Lazy<>(() -> StartupTiming.measure("car service", () ->
+                new CarService(databaseService, cacheMaximumSize, availabilityIndex.get())));
+        rentalHistoryWriter = new Lazy<>(() -> new RentalHistoryWriter(
+                DaoMetrics.instrument(RentalHistoryDao.class, new RentalHistoryDaoImpl(databaseService))));
+        customerService = new Lazy<>(() -> StartupTiming.measure("customer service", () ->
+                new CustomerService(databaseService, cacheMaximumSize, availabilityIndex.get(),
+                        rentalHistoryWriter.get())));
+        fleetService = new Lazy<>(() -> new FleetService(databaseService));
+        StartupTiming.mark("service wiring");
+    }
 
-        DatabaseService databaseService = new DatabaseService(DB_URL);
-        Connection connection = databaseService.getConnection();
+    /**
+     * @param file Snapshot of the companies, cars and rentals written when the program closes. If the file holds
+     *             a valid snapshot, the Availability Index and the company caches are filled from it instead of
+     *             from the tables, and the snapshot is checked against the database in the background.
+     *             Must be called before the services are used.
+     */
+    public void enableWarmStart(Path file) {
+        if (availabilityIndex.isCreated()) {
+            throw new IllegalStateException("The warm start must be enabled before the services are used.");
+        }
+        warmStart = new WarmStart(file, new FleetSnapshotDaoImpl(databaseService));
+        Optional<WarmStartSnapshot> snapshot = warmStart.load();
+        if (snapshot.isEmpty()) {
+            return;
+        }
+
+        warmStartIndex = snapshot.get().toAvailabilityIndex();
+        getCompanyService().warmUpCache(snapshot.get().getCompanies());
+        StartupTiming.mark("warm-start snapshot");
+        warmStart.verifyInBackground(snapshot.get(), availabilityIndex.get(), this::buildAvailabilityIndex,
+                () -> getCompanyService().invalidateCache());
+    }
+
+    private AvailabilityIndex buildAvailabilityIndex() {
+        return AvailabilityIndex.build(new CarDaoImpl(databaseService), new CustomerDaoImpl(databaseService));
+    }
 
-        companyService = new CompanyService(connection);
-        carService = new CarService(connection);
-        customerService = new CustomerService(connection);
+    /**
+     * @param pageSize Number of rows shown per page in the company, car and customer lists.
+     */
+    public void setPageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be at least 1");
+        }
+        this.pageSize = pageSize;
     }
 
     /**
      * Default run argument which uses run. Chosen in case Runnable interface will be implemented in the future.
+     * The Connection Pool is closed once the user exits the main menu, after the Rental History Writer
+     * has written every queued rental.
      */
     public void run() {
-        mainMenu();
+        try {
+            mainMenu();
+        } catch (EndOfInputException ignored) {
+            // the input ended without leaving the main menu
+        } finally {
+            output.flush();
+            close();
+        }
+    }
+
+    /**
+     * @param script          Menu choices and names, one per line, exactly as they would be typed in the console.
+     * @param machineReadable Prints every result as one tab-separated record instead of the console text.
+     *                        Same as run(), but reads the commands from the script and prints no prompts.
+     */
+    public void runScript(BufferedReader script, boolean machineReadable) {
+        bufferedReader = script;
+        output = new ConsoleOutput(System.out, false, machineReadable);
+        run();
+    }
+
+    /**
+     * Writes every queued rental, writes the warm-start snapshot if it is enabled and closes the Connection Pool.
+     * The snapshot is only written if the Availability Index was built during the session.
+     * Used directly by entry points that use the services without the menus.
+     */
+    @Override
+    public void close() {
+        rentalHistoryWriter.ifCreated(RentalHistoryWriter::close);
+        if (warmStart != null) {
+            warmStart.awaitVerification();
+            availabilityIndex.ifCreated(warmStart::save);
+        }
+        databaseService.close();
+    }
+
+    public CompanyService getCompanyService() {
+        return companyService.get();
+    }
+
+    public CarService getCarService() {
+        return carService.get();
+    }
+
+    public CustomerService getCustomerService() {
+        return customerService.get();
+    }
+
+    public FleetService getFleetService() {
+        return fleetService.get();
     }
 
     /**
@@ -69,9 +227,9 @@ public class DatabaseManager {
     private void mainMenu() {
         boolean exitMenu = false;
         do {
-            System.out.println("1. Log in as a manager");
-            System.out.println("2. Log in as a customer");
-            System.out.println("3. Create a customer");
+            output.prompt("1. Log in as a manager");
+            output.prompt("2. Log in as a customer");
+            output.prompt("3. Create a customer");
             printReturnOption();
 
             switch (getInteger()) {
@@ -79,7 +237,7 @@ public class DatabaseManager {
                 case 2 -> logInCustomer();
                 case 3 -> createCustomer();
                 case 0 -> exitMenu = true;
-                default -> System.out.println("Error: Invalid selection.\n");
+                default -> output.error("Error: Invalid selection.\n");
             }
         } while (!exitMenu);
     }
@@ -87,13 +245,16 @@ public class DatabaseManager {
     /**
      * The initial Manager Menu in where Managers can request a List of Companies
      * to then be able to add Cars to the selected Company or Managers can create a company.
+     * The Fleet report shows how many cars of every company are rented, and Idle cars how many are not.
      */
     private void companyManagerMenu() {
         boolean exitMenu = false;
 
         do {
-            System.out.println("1. Company list");
-            System.out.println("2. Create a company");
+            output.prompt("1. Company list");
+            output.prompt("2. Create a company");
+            output.prompt("3. Fleet report");
+            output.prompt("4. Idle cars");
             printReturnOption();
 
             switch (getInteger()) {
@@ -104,8 +265,10 @@ public class DatabaseManager {
                 }
 
                 case 2 -> createCompany();
+                case 3 -> printFleetReport();
+                case 4 -> printIdleCars();
                 case 0 -> exitMenu = true;
-                default -> System.out.println("Error: Invalid selection.\n");
+                default -> output.error("Error: Invalid selection.\n");
             }
         } while (!exitMenu);
     }
@@ -113,25 +276,23 @@ public class DatabaseManager {
     /**
      * @param company This menu requires the selected "Company" to be able to either request the list of
      *                Cars associated with the company or to create and add more cars to that particular company.
+     *                Cars can also be searched by a prefix or a misspelled name.
      */
     private void carMenu(Company company) {
         boolean exitMenu = false;
-        System.out.printf("'%s' company\n", company.getName());
+        output.prompt(String.format("'%s' company", company.getName()));
         do {
-            List<Car> carList = carService.getCarList(company);
-
-            System.out.println("1. Car list");
-            System.out.println("2. Create a car");
+            output.prompt("1. Car list");
+            output.prompt("2. Create a car");
+            output.prompt("3. Search cars");
             printReturnOption();
 
             switch (getInteger()) {
-                case 1 -> {
-                    printCarList(carList);
-                    System.out.println();
-                }
+                case 1 -> browseCarList(company);
                 case 2 -> createCar(company);
+                case 3 -> printCarSearch(company);
                 case 0 -> exitMenu = true;
-                default -> System.out.println("Error: Invalid selection.\n");
+                default -> output.error("Error: Invalid selection.\n");
             }
         } while (!exitMenu);
     }
@@ -143,15 +304,15 @@ public class DatabaseManager {
     private void customerMainMenu(Customer customer) {
         boolean exitMenu = false;
         do {
-            System.out.println("1. Rent a car");
-            System.out.println("2. Return a rented car");
-            System.out.println("3. My rented car");
+            output.prompt("1. Rent a car");
+            output.prompt("2. Return a rented car");
+            output.prompt("3. My rented car");
             printReturnOption();
 
             switch (getInteger()) {
                 case 1 -> {
                     if (customer.getRentedCarId() != 0) {
-                        System.out.println("You've already rented a car!");
+                        output.error("You've already rented a car!");
                         continue;
                     }
 
@@ -161,7 +322,7 @@ public class DatabaseManager {
                 case 2 -> returnRentedCar(customer);
                 case 3 -> rentedCarStatus(customer);
                 case 0 -> exitMenu = true;
-                default -> System.out.println("Error: Invalid selection.\n");
+                default -> output.error("Error: Invalid selection.\n");
             }
         } while (!exitMenu);
     }
@@ -173,73 +334,231 @@ public class DatabaseManager {
      *                 the correct list of cars to select from.
      */
     private void carRentalMenu(Customer customer, Company company) {
-        boolean exitMenu = false;
-        List<Car> carList = carService.getCarList(company);
-
-        if (customerService.isValidRentedCarId(customer)) {
-            System.out.println("You've already rented a car!");
+        if (getCustomerService().isValidRentedCarId(customer)) {
+            output.error("You've already rented a car!");
             return;
         }
 
+        PageCursor cursor = new PageCursor(pageSize);
         do {
-            System.out.println("Choose a car:");
-            printCarList(carList);
-            if (carList == null || carList.size() == 0) {
+            Page<Car> carPage = getCarService().getCarPage(company, cursor.getAfterId(), pageSize);
+
+            output.prompt("Choose a car:");
+            printCarList(carPage.getItems(), cursor.getFirstNumber(), true);
+            if (carPage.isEmpty()) {
                 return;
             }
+            printPageOptions(carPage, cursor);
+            output.prompt(SEARCH + ". Search");
             printReturnOption();
 
-            int userChoice = getInteger();
-            if (userChoice == 0) {
-                exitMenu = true;
-            } else if (userChoice > 0 && userChoice <= carList.size()) {
-                Car selectedCar = carList.get(userChoice - 1);
-                customerService.rentCustomerCar(customer, selectedCar);
-                System.out.printf("You rented '%s'\n", selectedCar.getName());
-                exitMenu = true;
+            String input = getUserInput();
+            if (changePage(input, carPage, cursor)) {
+                continue;
+            }
+
+            Optional<Car> chosenCar;
+            if (SEARCH.equalsIgnoreCase(input)) {
+                chosenCar = searchCarToRent(company);
+                if (chosenCar.isEmpty()) {
+                    continue;
+                }
             } else {
-                System.out.println("Error: Invalid Selection.\n");
+                int userChoice = parseInteger(input);
+                int index = userChoice - cursor.getFirstNumber();
+                if (userChoice == 0) {
+                    return;
+                }
+                chosenCar = userChoice > 0 && index >= 0 && index < carPage.getItems().size()
+                        ? Optional.of(carPage.getItems().get(index)) : Optional.empty();
             }
-        } while (!exitMenu);
+
+            if (chosenCar.isPresent()) {
+                Car selectedCar = chosenCar.get();
+                switch (getCustomerService().rentCustomerCar(customer, selectedCar)) {
+                    case RENTED -> {
+                        output.ok(String.format("You rented '%s'", selectedCar.getName()));
+                        return;
+                    }
+                    case CAR_TAKEN -> output.error(String.format("Error: '%s' was just rented by someone else.\n",
+                            selectedCar.getName()));
+                    case ALREADY_RENTING -> {
+                        output.error("You've already rented a car!");
+                        return;
+                    }
+                    default -> {
+                        output.error("Error: The car could not be rented.\n");
+                        return;
+                    }
+                }
+            } else {
+                output.error("Error: Invalid Selection.\n");
+            }
+        } while (true);
+    }
+
+    /**
+     * @param company Asks for a search text and lets the customer choose one of the matching available cars.
+     * @return Returns the chosen car, or an empty Optional if nothing matched or the customer went back.
+     */
+    private Optional<Car> searchCarToRent(Company company) {
+        output.prompt("Enter the search text:");
+        List<Car> carList = getCarService().searchAvailableCars(company, getUserInput(), pageSize);
+        if (carList.isEmpty()) {
+            output.ok("No cars match the search!\n");
+            return Optional.empty();
+        }
+
+        output.prompt("Choose a car:");
+        printCarList(carList, 1, true);
+        printReturnOption();
+        int userChoice = getInteger();
+        if (userChoice > 0 && userChoice <= carList.size()) {
+            return Optional.of(carList.get(userChoice - 1));
+        }
+        if (userChoice != 0) {
+            output.error("Error: Invalid Selection.\n");
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @param company Asks for a search text and prints up to one page of the company's cars matching it,
+     *                best match first. Rented cars are included.
+     */
+    private void printCarSearch(Company company) {
+        output.prompt("Enter the search text:");
+        List<Car> carList = getCarService().searchCars(company, getUserInput(), pageSize);
+        if (carList.isEmpty()) {
+            output.ok("No cars match the search!\n");
+            return;
+        }
+        printCarList(carList, 1, false);
+        output.line("");
+    }
+
+    /**
+     * @param company Prints the available cars of the company one page at a time. The paging options are
+     *                only offered when the list does not fit on one page.
+     */
+    private void browseCarList(Company company) {
+        PageCursor cursor = new PageCursor(pageSize);
+        boolean changedPage;
+        do {
+            Page<Car> carPage = getCarService().getCarPage(company, cursor.getAfterId(), pageSize);
+
+            printCarList(carPage.getItems(), cursor.getFirstNumber(), false);
+            output.line("");
+            if (!carPage.hasNext() && !cursor.hasPrevious()) {
+                return;
+            }
+            printPageOptions(carPage, cursor);
+            printReturnOption();
+            changedPage = changePage(getUserInput(), carPage, cursor);
+        } while (changedPage);
+    }
+
+    /**
+     * Prints the total, rented and available cars and the utilization of every company, followed by the
+     * whole fleet. Machine-readable output has one COMPANY record per company and a TOTAL record.
+     */
+    private void printFleetReport() {
+        List<CompanyUtilization> fleetReport = getFleetService().getFleetReport();
+        if (fleetReport.isEmpty()) {
+            output.ok("The fleet report is empty!\n");
+            return;
+        }
+
+        int totalCars = 0;
+        int rentedCars = 0;
+        output.line("Fleet report:");
+        for (int i = 0; i < fleetReport.size(); i++) {
+            CompanyUtilization company = fleetReport.get(i);
+            totalCars += company.totalCars();
+            rentedCars += company.rentedCars();
+            output.line(String.format("%d. %s: %d cars, %d rented, %d available, %.1f%% utilized", i + 1,
+                    company.companyName(), company.totalCars(), company.rentedCars(), company.availableCars(),
+                    company.utilization() * 100));
+            output.record("COMPANY", String.valueOf(company.companyId()), company.companyName(),
+                    String.valueOf(company.totalCars()), String.valueOf(company.rentedCars()),
+                    String.valueOf(company.availableCars()), String.format("%.4f", company.utilization()));
+        }
+
+        double utilization = totalCars == 0 ? 0 : (double) rentedCars / totalCars;
+        output.line(String.format("Total: %d cars, %d rented, %d available, %.1f%% utilized", totalCars,
+                rentedCars, totalCars - rentedCars, utilization * 100));
+        output.record("TOTAL", String.valueOf(totalCars), String.valueOf(rentedCars),
+                String.valueOf(totalCars - rentedCars), String.format("%.4f", utilization));
+        output.line("");
     }
 
+    /**
+     * Prints the idle cars of every company from the fleet snapshot, which is brought up to date first.
+     * Machine-readable output has one IDLE record per company and a TOTAL record.
+     */
+    private void printIdleCars() {
+        FleetSnapshot snapshot = getFleetService().refreshSnapshot();
+        if (snapshot.getCompanyCount() == 0) {
+            output.ok("The company list is empty!\n");
+            return;
+        }
+
+        Map<Integer, Integer> carsPerCompany = snapshot.getCarsPerCompany();
+        Map<Integer, Integer> rentedCarsPerCompany = snapshot.getRentedCarsPerCompany();
+        output.line("Idle cars:");
+        int i = 1;
+        for (Map.Entry<Integer, Integer> entry : carsPerCompany.entrySet()) {
+            int companyId = entry.getKey();
+            int idleCars = entry.getValue() - rentedCarsPerCompany.get(companyId);
+            String companyName = snapshot.getCompanyName(companyId);
+            output.line(String.format("%d. %s: %d of %d cars idle", i++, companyName, idleCars, entry.getValue()));
+            output.record("IDLE", String.valueOf(companyId), companyName, String.valueOf(idleCars),
+                    String.valueOf(entry.getValue()));
+        }
+
+        output.line(String.format("Total: %d of %d cars idle, %.1f%% rented", snapshot.countIdleCars(),
+                snapshot.getCarCount(), snapshot.getRentedRatio() * 100));
+        output.record("TOTAL", String.valueOf(snapshot.countIdleCars()), String.valueOf(snapshot.getCarCount()),
+                String.format("%.4f", snapshot.getRentedRatio()));
+        output.line("");
+    }
 
     /**
      * This is the function used by managers to create a company in the Company table.
-     * Returns true if successful and false if the value already exists.
+     * Prints an error if the value already exists.
      */
     private void createCompany() {
-        System.out.println("Enter the company name:");
-        if (companyService.createCompany(getUserInput())) {
-            System.out.println("The company was created!\n");
+        output.prompt("Enter the company name:");
+        if (getCompanyService().createCompany(getUserInput()).isPresent()) {
+            output.ok("The company was created!\n");
         } else {
-            System.out.println("Error: The company already exists in the database.\n");
+            output.error("Error: The company already exists in the database.\n");
         }
     }
 
     /**
      * @param company This is the function used by managers to create a car for a company in the Car table.
-     *                Returns true if successful and false if the value already exists.
+     *                Prints an error if the value already exists.
      */
     private void createCar(Company company) {
-        System.out.println("Enter the car name:");
-        if (carService.createCar(company, getUserInput())) {
-            System.out.println("The car was created!\n");
+        output.prompt("Enter the car name:");
+        if (getCarService().createCar(company, getUserInput()).isPresent()) {
+            output.ok("The car was created!\n");
         } else {
-            System.out.println("Error: The car already exists in the database.\n");
+            output.error("Error: The car already exists in the database.\n");
         }
     }
 
     /**
      * This is the function used to create a new Customer to save in the Customer table.
-     * Returns true if successful and false if the value already exists.
+     * Prints an error if the value already exists.
      */
     private void createCustomer() {
-        System.out.println("Enter the customer name:");
-        if (customerService.createCustomer(getUserInput())) {
-            System.out.println("The customer was added!\n");
+        output.prompt("Enter the customer name:");
+        if (getCustomerService().createCustomer(getUserInput()).isPresent()) {
+            output.ok("The customer was added!\n");
         } else {
-            System.out.println("Error: The customer already exists in the database\n");
+            output.error("Error: The customer already exists in the database\n");
         }
     }
 
@@ -259,27 +578,35 @@ public class DatabaseManager {
     /**
      * @return This is the function to call the menu to select a Company from the list of Companies from
      * the Company table or to return an empty Optional to indicate no Company was selected and to return.
+     * The list is loaded one page at a time.
      */
     private Optional<Company> selectCompany() {
+        PageCursor cursor = new PageCursor(pageSize);
         do {
-            List<Company> companyList = companyService.getCompanyList();
+            Page<Company> companyPage = getCompanyService().getCompanyPage(cursor.getAfterId(), pageSize);
 
-            System.out.println("Choose the company:");
-            printCompanyList(companyList);
+            output.prompt("Choose the company:");
+            printCompanyList(companyPage.getItems(), cursor.getFirstNumber());
 
-            if (companyList.size() == 0) {
+            if (companyPage.isEmpty()) {
                 return Optional.empty();
             }
 
+            printPageOptions(companyPage, cursor);
             printReturnOption();
-            int selection = getInteger();
+            String input = getUserInput();
+            if (changePage(input, companyPage, cursor)) {
+                continue;
+            }
 
+            int selection = parseInteger(input);
+            int index = selection - cursor.getFirstNumber();
             if (selection == 0) {
                 return Optional.empty();
-            } else if (selection > 0 && selection <= companyList.size()) {
-                return Optional.of(companyList.get(selection - 1));
+            } else if (selection > 0 && index >= 0 && index < companyPage.getItems().size()) {
+                return Optional.of(companyPage.getItems().get(index));
             } else {
-                System.out.println("INVALID CHOICE\n");
+                output.error("INVALID CHOICE\n");
             }
         } while (true);
     }
@@ -287,23 +614,42 @@ public class DatabaseManager {
     /**
      * @return This is a function to select a Customer from the list of Customers from the Customer table
      * or to return an empty Optional which indicates no Customer was selected and to exit.
+     * The list is loaded one page at a time. Instead of a number, the customer can type their name or
+     * their ID after a "#" to log in directly.
      */
     private Optional<Customer> selectCustomer() {
+        PageCursor cursor = new PageCursor(pageSize);
         do {
-            List<Customer> customerList = customerService.returnCustomerList();
+            Page<Customer> customerPage = getCustomerService().getCustomerPage(cursor.getAfterId(), pageSize);
 
-            printCustomerList(customerList);
-            if (customerList.size() == 0) {
+            printCustomerList(customerPage.getItems(), cursor.getFirstNumber());
+            if (customerPage.isEmpty()) {
                 return Optional.empty();
             }
+            printPageOptions(customerPage, cursor);
             printReturnOption();
-            int selection = getInteger();
+            output.prompt("Or enter your name or " + ID_PREFIX + "ID:");
+            String input = getUserInput();
+            if (changePage(input, customerPage, cursor)) {
+                continue;
+            }
+            if (!isInteger(input)) {
+                Optional<Customer> customer = findCustomer(input);
+                if (customer.isPresent()) {
+                    return customer;
+                }
+                output.error("Error: No customer with that name or ID.\n");
+                continue;
+            }
+
+            int selection = parseInteger(input);
+            int index = selection - cursor.getFirstNumber();
             if (selection == 0) {
                 return Optional.empty();
-            } else if (selection > 0 && selection <= customerList.size()) {
-                return Optional.of(customerList.get(selection - 1));
+            } else if (selection > 0 && index >= 0 && index < customerPage.getItems().size()) {
+                return Optional.of(customerPage.getItems().get(index));
             } else {
-                System.out.println("Error: Invalid selection.\n");
+                output.error("Error: Invalid selection.\n");
             }
         } while (true);
     }
@@ -315,102 +661,182 @@ public class DatabaseManager {
      *                 update request in the database.
      */
     private void returnRentedCar(Customer customer) {
-        if (customerService.isValidRentedCarId(customer)) {
-            customerService.returnCustomerCar(customer);
-            System.out.println("You've returned a rented car!\n");
-        } else {
-            System.out.println("You didn't rent a car!\n");
+        if (!getCustomerService().isValidRentedCarId(customer)) {
+            output.error("You didn't rent a car!\n");
+            return;
+        }
+
+        switch (getCustomerService().returnCustomerCar(customer)) {
+            case RETURNED -> output.ok("You've returned a rented car!\n");
+            case NOT_RENTING -> output.error("You didn't rent a car!\n");
+            default -> output.error("Error: The car could not be returned.\n");
         }
     }
 
     /**
      * @param customer This is the function to allow customers to check the status of their rented car.
      *                 If there is a valid rental, the information is pulled from both the Company and Car
-     *                 tables.
+     *                 tables. The company of the car is known from the Availability Index, so both lookups
+     *                 run at the same time; a car missing from the index is looked up first.
      */
     private void rentedCarStatus(Customer customer) {
-        if (customerService.isValidRentedCarId(customer)) {
-            Car rentedCar = carService.getCar(customer);
-            Company rentalCompany = companyService.getCompany(rentedCar.getCompanyId());
-
-            System.out.println("You rented car:");
-            System.out.println(rentedCar.getName());
-            System.out.println("Company:");
-            System.out.println(rentalCompany.getName());
-            System.out.println();
+        if (getCustomerService().isValidRentedCarId(customer)) {
+            CompletableFuture<Car> carLookup = getCarService().getCarAsync(customer);
+            int companyId = getCarService().getRentedCarCompanyId(customer);
+            CompletableFuture<Company> companyLookup = companyId != 0
+                    ? getCompanyService().getCompanyAsync(companyId)
+                    : carLookup.thenCompose(car -> getCompanyService().getCompanyAsync(car.getCompanyId()));
+            Car rentedCar = carLookup.join();
+            Company rentalCompany = companyLookup.join();
+
+            output.line("You rented car:");
+            output.line(rentedCar.getName());
+            output.line("Company:");
+            output.line(rentalCompany.getName());
+            output.line("");
+            output.record("RENTED_CAR", rentedCar.getName(), rentalCompany.getName());
         } else {
-            System.out.println("You didn't rent a car!\n");
+            output.error("You didn't rent a car!\n");
         }
     }
 
     //user interface functions below
     private void printReturnOption() {
-        System.out.println("0. Back\n");
+        output.prompt("0. Back\n");
     }
 
     /*
     So there are three methods that probably could be condensed into one which are
     these three print lists but the problem I have is that I cannot use reflection
     to get the name of the class inside the list due to type erasure.
+    Company and Customer lists are only printed to choose from, so they are prompts. The Car list is
+    a prompt when renting and a result when a manager asks for it.
      */
-    private void printCompanyList(List<Company> companyList) {
+    private void printCompanyList(List<Company> companyList, int firstNumber) {
         if (companyList == null || companyList.size() == 0) {
-            System.out.println("The company list is empty!\n");
+            output.ok("The company list is empty!\n");
             return;
         }
 
-        companyList.sort(Comparator.comparingInt(Company::getId));
-
-        System.out.println("Company list:");
+        output.prompt("Company list:");
         for (int i = 0; i < companyList.size(); i++) {
-            System.out.println(i + 1 + ". " + companyList.get(i).getName());
+            output.prompt(firstNumber + i + ". " + companyList.get(i).getName());
         }
     }
 
-    private void printCarList(List<Car> carList) {
+    private void printCarList(List<Car> carList, int firstNumber, boolean toChooseFrom) {
         if (carList == null || carList.size() == 0) {
-            System.out.println("The car list is empty!\n");
+            output.ok("The car list is empty!\n");
             return;
         }
 
-        carList.sort(Comparator.comparingInt(Car::getId));
-
-        System.out.println("Car list:");
-        for (int i = 0; i < carList.size(); i++) {
-            System.out.println(i + 1 + ". " + carList.get(i).getName());
+        if (toChooseFrom) {
+            output.prompt("Car list:");
+            for (int i = 0; i < carList.size(); i++) {
+                output.prompt(firstNumber + i + ". " + carList.get(i).getName());
+            }
+        } else {
+            output.line("Car list:");
+            for (int i = 0; i < carList.size(); i++) {
+                output.item(firstNumber + i, carList.get(i).getName());
+            }
         }
     }
 
-    private void printCustomerList(List<Customer> customerList) {
+    private void printCustomerList(List<Customer> customerList, int firstNumber) {
         if (customerList == null || customerList.size() == 0) {
-            System.out.println("The customer list is empty!\n");
+            output.ok("The customer list is empty!\n");
             return;
         }
 
-        customerList.sort(Comparator.comparingInt(Customer::getId));
-
-        System.out.println("Customer list:");
+        output.prompt("Customer list:");
         for (int i = 0; i < customerList.size(); i++) {
-            System.out.println(i + 1 + ". " + customerList.get(i).getName());
+            output.prompt(firstNumber + i + ". " + customerList.get(i).getName());
+        }
+    }
+
+    /*
+    Lists are numbered across pages, so the next and previous options use letters
+    and are only printed when there is a page to go to.
+     */
+    private void printPageOptions(Page<?> page, PageCursor cursor) {
+        if (page.hasNext()) {
+            output.prompt(NEXT_PAGE + ". Next page");
+        }
+        if (cursor.hasPrevious()) {
+            output.prompt(PREVIOUS_PAGE + ". Previous page");
         }
     }
 
+    /**
+     * @return Returns true if the input moved the cursor to the next or previous page.
+     */
+    private boolean changePage(String input, Page<?> page, PageCursor cursor) {
+        if (NEXT_PAGE.equalsIgnoreCase(input) && page.hasNext()) {
+            cursor.next(page.getLastId());
+            return true;
+        }
+        if (PREVIOUS_PAGE.equalsIgnoreCase(input) && cursor.hasPrevious()) {
+            cursor.previous();
+            return true;
+        }
+        return false;
+    }
+
+    /*
+    Everything printed for the previous command is flushed in one write before waiting for the next one.
+    The first wait for input is where the startup timing ends.
+    Running out of input ends the program the same way as choosing 0 in the main menu.
+     */
     private String getUserInput() {
+        output.flush();
+        StartupTiming.firstPrompt();
         try {
             String input = bufferedReader.readLine();
-            System.out.println();
+            if (input == null) {
+                throw new EndOfInputException();
+            }
+            output.prompt("");
             return input;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private static class EndOfInputException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
     private int getInteger() {
+        return parseInteger(getUserInput());
+    }
+
+    private static boolean isInteger(String input) {
+        return input.matches("-?\\d+");
+    }
+
+    /*
+    A customer can log in without going through the list: "#12" is looked up by ID and any other
+    text by name. Both are single indexed lookups, however many customers there are.
+     */
+    private Optional<Customer> findCustomer(String input) {
+        String text = input.strip();
+        if (text.startsWith(ID_PREFIX) && isInteger(text.substring(ID_PREFIX.length()))) {
+            try {
+                return getCustomerService().findCustomer(Integer.parseInt(text.substring(ID_PREFIX.length())));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
+        return text.isEmpty() ? Optional.empty() : getCustomerService().findCustomerByName(text);
+    }
+
+    private int parseInteger(String input) {
         int result = -1;
         try {
-            result = Integer.parseInt(getUserInput());
+            result = Integer.parseInt(input);
         } catch (NumberFormatException e) {
-            System.out.println("Error: Invalid Input as number.\n");
+            output.error("Error: Invalid Input as number.\n");
         }
         return result;
     }
@@ -0,0 +1,42 @@
+package carsharing.manager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Position of a console listing that is shown one page at a time. The start key of every page
+ * visited so far is kept, so going back a page is another keyset query instead of an OFFSET.
+ */
+class PageCursor {
+    private final Deque<Integer> previousKeys = new ArrayDeque<>();
+    private final int pageSize;
+    private int afterId;
+
+    PageCursor(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    int getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * @return Returns the list number of the first row on the current page, so numbering continues across pages.
+     */
+    int getFirstNumber() {
+        return previousKeys.size() * pageSize + 1;
+    }
+
+    boolean hasPrevious() {
+        return !previousKeys.isEmpty();
+    }
+
+    void next(int lastId) {
+        previousKeys.push(afterId);
+        afterId = lastId;
+    }
+
+    void previous() {
+        afterId = previousKeys.pop();
+    }
+}
@@ -0,0 +1,113 @@
+package carsharing.metrics;
+
+import carsharing.dao.Page;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Measures every method of a DAO interface through a dynamic proxy and publishes the numbers as MBeans
+ * named carsharing:type=DaoOperation,dao=CarDao,name=getCarById, readable from JConsole or VisualVM.
+ * <p>
+ * A call counts as an error if it throws or if the DAO reported a swallowed SQLException through
+ * {@link SqlErrors} while it ran. Rows are the size of a returned list or page, or 0/1 for an Optional.
+ * Overloads of a method share one MBean, and every DAO instance of the same interface shares the counters.
+ */
+public final class DaoMetrics {
+    private static final String DOMAIN = "carsharing";
+    private static final ConcurrentMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    private DaoMetrics() {
+    }
+
+    /**
+     * @param daoInterface
+     * @param dao
+     * @return Returns a DAO that forwards every call to the given one and measures it.
+     */
+    public static <T> T instrument(Class<T> daoInterface, T dao) {
+        String daoName = daoInterface.getSimpleName();
+        Map<Method, OperationStats> statsByMethod = new HashMap<>();
+        for (Method method : daoInterface.getMethods()) {
+            statsByMethod.put(method, getOperationStats(daoName, method.getName()));
+        }
+
+        Object proxy = Proxy.newProxyInstance(daoInterface.getClassLoader(), new Class<?>[]{daoInterface},
+                (instance, method, args) -> {
+                    OperationStats stats = statsByMethod.get(method);
+                    if (stats == null) {
+                        return invoke(dao, method, args);
+                    }
+                    long errorsBefore = SqlErrors.getErrorsOnThisThread();
+                    long start = System.nanoTime();
+                    Object result = null;
+                    boolean threw = true;
+                    try {
+                        result = invoke(dao, method, args);
+                        threw = false;
+                        return result;
+                    } finally {
+                        boolean failed = threw || SqlErrors.getErrorsOnThisThread() != errorsBefore;
+                        stats.record(System.nanoTime() - start, rowsOf(result), failed);
+                    }
+                });
+        return daoInterface.cast(proxy);
+    }
+
+    /**
+     * @param daoName
+     * @param methodName
+     * @return Returns the counters of the DAO method, registering its MBean the first time it is asked for.
+     */
+    public static OperationStats getOperationStats(String daoName, String methodName) {
+        return operations.computeIfAbsent(daoName + "." + methodName, key -> {
+            OperationStats stats = new OperationStats();
+            register(daoName, methodName, stats);
+            return stats;
+        });
+    }
+
+    private static Object invoke(Object dao, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(dao, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Page<?> page) {
+            return page.getItems().size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return 0;
+    }
+
+    private static void register(String daoName, String methodName, OperationStats stats) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=DaoOperation,dao=" + daoName + ",name=" + methodName);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(stats, objectName);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+}
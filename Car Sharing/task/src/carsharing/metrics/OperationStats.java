@@ -0,0 +1,65 @@
+package carsharing.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call, error and row counts and the latency histogram of one DAO method. Every counter is lock-free,
+ * so recording never makes two callers wait for each other.
+ */
+public class OperationStats implements OperationStatsMBean {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    void record(long nanos, long rowCount, boolean failed) {
+        calls.increment();
+        rows.add(rowCount);
+        if (failed) {
+            errors.increment();
+        }
+        latency.record(nanos);
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.getMeanNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.getValueAtPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP95Millis() {
+        return latency.getValueAtPercentile(95) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.getValueAtPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getMaxNanos() / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,24 @@
+package carsharing.metrics;
+
+/**
+ * Management interface of {@link OperationStats}, one MBean per DAO method.
+ * Latencies are in milliseconds.
+ */
+public interface OperationStatsMBean {
+
+    long getCalls();
+
+    long getErrors();
+
+    long getRows();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+}
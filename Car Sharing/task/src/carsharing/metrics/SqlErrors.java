@@ -0,0 +1,34 @@
+package carsharing.metrics;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where the DAO impls report the SQLExceptions they handle themselves. The stack trace is still printed,
+ * and the error is counted so the DAO that swallowed it shows up in the error counts of {@link DaoMetrics}.
+ */
+public final class SqlErrors {
+    private static final LongAdder totalErrors = new LongAdder();
+    private static final ThreadLocal<long[]> errorsOnThread = ThreadLocal.withInitial(() -> new long[1]);
+
+    private SqlErrors() {
+    }
+
+    public static void report(SQLException e) {
+        e.printStackTrace();
+        totalErrors.increment();
+        errorsOnThread.get()[0]++;
+    }
+
+    public static long getTotalErrors() {
+        return totalErrors.sum();
+    }
+
+    /**
+     * @return Returns the number of errors reported by the calling thread so far. Comparing it before and
+     * after a DAO call tells whether that call swallowed an error.
+     */
+    public static long getErrorsOnThisThread() {
+        return errorsOnThread.get()[0];
+    }
+}
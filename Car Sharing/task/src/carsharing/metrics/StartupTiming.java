@@ -0,0 +1,88 @@
+package carsharing.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Breakdown of the time from JVM start to the first prompt, printed to standard error when turned on
+ * with -startupTiming true. Each phase is measured from the end of the previous one. Work that is only
+ * done later, such as a service created on first use, is printed on its own line when it happens.
+ * Everything here does nothing while timing is off.
+ */
+public final class StartupTiming {
+    private static final List<String> phases = new ArrayList<>();
+    private static volatile boolean enabled;
+    private static boolean reported;
+    private static long startNanos;
+    private static long lastNanos;
+
+    private StartupTiming() {
+    }
+
+    /**
+     * Starts timing. The time the JVM took to reach this call is recorded as the first phase.
+     */
+    public static synchronized void enable() {
+        enabled = true;
+        startNanos = System.nanoTime();
+        lastNanos = startNanos;
+        long jvmMillis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        phases.add(String.format("%-28s %8.1f ms", "JVM start to main", (double) jvmMillis));
+    }
+
+    /**
+     * @param phase Name of the phase that just ended.
+     */
+    public static synchronized void mark(String phase) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        record(phase, now - lastNanos);
+        lastNanos = now;
+    }
+
+    /**
+     * @param phase    Name printed for the work.
+     * @param supplier Work that is timed on its own, outside of the phase sequence.
+     * @return Returns what the supplier returned.
+     */
+    public static <T> T measure(String phase, Supplier<T> supplier) {
+        if (!enabled) {
+            return supplier.get();
+        }
+        long start = System.nanoTime();
+        T result = supplier.get();
+        long elapsedNanos = System.nanoTime() - start;
+        synchronized (StartupTiming.class) {
+            record(phase, elapsedNanos);
+            lastNanos += elapsedNanos;
+        }
+        return result;
+    }
+
+    /**
+     * Ends the sequence at the first prompt and prints the breakdown. Later calls do nothing.
+     */
+    public static synchronized void firstPrompt() {
+        if (!enabled || reported) {
+            return;
+        }
+        mark("until first prompt");
+        reported = true;
+        System.err.println("Startup timing:");
+        phases.forEach(phase -> System.err.println("  " + phase));
+        System.err.printf("  %-28s %8.1f ms%n", "main to first prompt", (lastNanos - startNanos) / 1_000_000.0);
+    }
+
+    private static void record(String phase, long elapsedNanos) {
+        String line = String.format("%-28s %8.1f ms", phase, elapsedNanos / 1_000_000.0);
+        if (reported) {
+            System.err.println("Startup timing (on first use): " + line.strip());
+        } else {
+            phases.add(line);
+        }
+    }
+}
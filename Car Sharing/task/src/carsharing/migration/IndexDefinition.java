@@ -0,0 +1,33 @@
+package carsharing.migration;
+
+/**
+ * A secondary index the schema must have. The index counts as present if any index on the table
+ * starts with the same columns, so indexes H2 already creates for constraints are re-used.
+ */
+public class IndexDefinition {
+    private final String name;
+    private final String tableName;
+    private final String[] columnNames;
+
+    public IndexDefinition(String name, String tableName, String... columnNames) {
+        this.name = name;
+        this.tableName = tableName;
+        this.columnNames = columnNames;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    public String toCreateStatement() {
+        return "CREATE INDEX IF NOT EXISTS " + name + " ON " + tableName + "(" + String.join(", ", columnNames) + ")";
+    }
+}
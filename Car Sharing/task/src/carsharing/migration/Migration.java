@@ -0,0 +1,54 @@
+package carsharing.migration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * One versioned schema change: a list of SQL statements followed by the indexes it requires.
+ * The checksum covers both, so an applied migration that is edited afterwards is detected.
+ */
+public class Migration {
+    private final int version;
+    private final String description;
+    private final List<String> statements;
+    private final List<IndexDefinition> indexes;
+
+    public Migration(int version, String description, List<String> statements, List<IndexDefinition> indexes) {
+        this.version = version;
+        this.description = description;
+        this.statements = statements;
+        this.indexes = indexes;
+    }
+
+    public Migration(int version, String description, List<String> statements) {
+        this(version, description, statements, List.of());
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    public List<IndexDefinition> getIndexes() {
+        return indexes;
+    }
+
+    public long getChecksum() {
+        CRC32 crc = new CRC32();
+        for (String statement : statements) {
+            crc.update(statement.getBytes(StandardCharsets.UTF_8));
+        }
+        for (IndexDefinition index : indexes) {
+            crc.update(index.toCreateStatement().getBytes(StandardCharsets.UTF_8));
+        }
+        return crc.getValue();
+    }
+}
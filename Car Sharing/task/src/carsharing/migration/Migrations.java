@@ -0,0 +1,55 @@
+package carsharing.migration;
+
+import java.util.List;
+
+/**
+ * All schema migrations in version order. Applied migrations must never be edited;
+ * add a new version instead.
+ */
+public final class Migrations {
+
+    private Migrations() {
+    }
+
+    public static List<Migration> all() {
+        return List.of(
+                new Migration(1, "Create COMPANY, CAR and CUSTOMER tables", List.of(
+                        "CREATE TABLE IF NOT EXISTS COMPANY " +
+                                "(id INTEGER NOT NULL AUTO_INCREMENT, " +
+                                " name VARCHAR(255) NOT NULL UNIQUE, " +
+                                " PRIMARY KEY ( id ))",
+                        "CREATE TABLE IF NOT EXISTS CAR " +
+                                "(ID INTEGER NOT NULL AUTO_INCREMENT, " +
+                                " NAME VARCHAR(255) NOT NULL UNIQUE, " +
+                                " COMPANY_ID INT NOT NULL, " +
+                                " PRIMARY KEY (ID)," +
+                                " FOREIGN KEY (COMPANY_ID) REFERENCES COMPANY(ID))",
+                        "CREATE TABLE IF NOT EXISTS CUSTOMER " +
+                                "(ID INTEGER NOT NULL AUTO_INCREMENT, " +
+                                " NAME VARCHAR(255) NOT NULL UNIQUE, " +
+                                " RENTED_CAR_ID INTEGER NULL," +
+                                " PRIMARY KEY ( ID )," +
+                                " FOREIGN KEY (RENTED_CAR_ID)" +
+                                " REFERENCES CAR(ID))")),
+                new Migration(2, "Index the availability join columns", List.of(), List.of(
+                        new IndexDefinition("IDX_CAR_COMPANY_ID", "CAR", "COMPANY_ID"),
+                        new IndexDefinition("IDX_CUSTOMER_RENTED_CAR_ID", "CUSTOMER", "RENTED_CAR_ID"))),
+                new Migration(3, "Track car availability on CAR", List.of(
+                        "ALTER TABLE CAR ADD COLUMN IF NOT EXISTS AVAILABLE BOOLEAN DEFAULT TRUE NOT NULL",
+                        "UPDATE CAR SET AVAILABLE = FALSE WHERE ID IN " +
+                                "(SELECT RENTED_CAR_ID FROM CUSTOMER WHERE RENTED_CAR_ID IS NOT NULL)"), List.of(
+                        new IndexDefinition("IDX_CAR_COMPANY_AVAILABLE", "CAR", "COMPANY_ID", "AVAILABLE"))),
+                new Migration(4, "Record every rental in RENTAL_HISTORY", List.of(
+                        "CREATE TABLE IF NOT EXISTS RENTAL_HISTORY " +
+                                "(ID BIGINT NOT NULL AUTO_INCREMENT, " +
+                                " CUSTOMER_ID INTEGER NOT NULL, " +
+                                " CAR_ID INTEGER NOT NULL, " +
+                                " COMPANY_ID INTEGER NOT NULL, " +
+                                " RENTED_AT TIMESTAMP NOT NULL, " +
+                                " RETURNED_AT TIMESTAMP NULL, " +
+                                " PRIMARY KEY (ID))"), List.of(
+                        new IndexDefinition("IDX_RENTAL_HISTORY_CUSTOMER_CAR", "RENTAL_HISTORY", "CUSTOMER_ID", "CAR_ID"),
+                        new IndexDefinition("IDX_RENTAL_HISTORY_COMPANY", "RENTAL_HISTORY", "COMPANY_ID", "RENTED_AT")))
+        );
+    }
+}
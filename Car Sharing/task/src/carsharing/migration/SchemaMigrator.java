@@ -0,0 +1,201 @@
+package carsharing.migration;
+
+import carsharing.service.DatabaseService;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings the database schema up to the latest version.
+ * <p>
+ * Applied versions are recorded in the SCHEMA_VERSION table together with their checksum.
+ * On every start the recorded checksums are compared with the migrations in {@link Migrations},
+ * pending migrations are applied in version order and the indexes of all migrations are verified,
+ * re-creating any that went missing. Existing database files without a SCHEMA_VERSION table are
+ * upgraded in place, since the first migration only creates tables that do not exist yet.
+ * <p>
+ * The tables and index columns are read from INFORMATION_SCHEMA once per start instead of once per
+ * index, so an up-to-date database is checked with three queries and no DDL at all.
+ */
+public class SchemaMigrator {
+    private static final String CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS SCHEMA_VERSION " +
+            "(VERSION INTEGER NOT NULL, " +
+            " DESCRIPTION VARCHAR(255) NOT NULL, " +
+            " CHECKSUM BIGINT NOT NULL, " +
+            " INSTALLED_ON TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+            " PRIMARY KEY (VERSION))";
+
+    private final DatabaseService databaseService;
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(DatabaseService databaseService) {
+        this(databaseService, Migrations.all());
+    }
+
+    public SchemaMigrator(DatabaseService databaseService, List<Migration> migrations) {
+        this.databaseService = databaseService;
+        this.migrations = migrations;
+    }
+
+    /**
+     * @return Returns the schema version after migrating.
+     * @throws IllegalStateException if an applied migration was changed or a migration fails.
+     */
+    public int migrate() {
+        try (Connection connection = databaseService.getConnection()) {
+            Catalog catalog = Catalog.read(connection);
+            if (!catalog.tables.contains("SCHEMA_VERSION")) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(CREATE_VERSION_TABLE);
+                }
+            }
+
+            Map<Integer, Long> appliedChecksums = findAppliedChecksums(connection);
+            int currentVersion = 0;
+
+            for (Migration migration : migrations) {
+                Long appliedChecksum = appliedChecksums.get(migration.getVersion());
+                if (appliedChecksum == null) {
+                    apply(connection, migration, catalog);
+                } else if (appliedChecksum != migration.getChecksum()) {
+                    throw new IllegalStateException("Migration " + migration.getVersion()
+                            + " (" + migration.getDescription() + ") was changed after it was applied.");
+                }
+                currentVersion = migration.getVersion();
+            }
+
+            verifyIndexes(connection, catalog);
+            return currentVersion;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not migrate the database schema.", e);
+        }
+    }
+
+    /**
+     * @param connection
+     * @return Creates any index of an applied migration that is missing and returns the names of
+     * the indexes that had to be created.
+     */
+    public List<String> verifyIndexes(Connection connection) throws SQLException {
+        return verifyIndexes(connection, Catalog.read(connection));
+    }
+
+    private List<String> verifyIndexes(Connection connection, Catalog catalog) throws SQLException {
+        List<String> createdIndexes = new ArrayList<>();
+        for (Migration migration : migrations) {
+            for (IndexDefinition index : migration.getIndexes()) {
+                if (createIndexIfMissing(connection, index, catalog)) {
+                    createdIndexes.add(index.getName());
+                }
+            }
+        }
+        return createdIndexes;
+    }
+
+    private void apply(Connection connection, Migration migration, Catalog catalog) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : migration.getStatements()) {
+                    statement.execute(sql);
+                }
+            }
+            for (IndexDefinition index : migration.getIndexes()) {
+                createIndexIfMissing(connection, index, catalog);
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO SCHEMA_VERSION(VERSION, DESCRIPTION, CHECKSUM) VALUES(?,?,?)")) {
+                statement.setInt(1, migration.getVersion());
+                statement.setString(2, migration.getDescription());
+                statement.setLong(3, migration.getChecksum());
+                statement.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private Map<Integer, Long> findAppliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, Long> appliedChecksums = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT VERSION, CHECKSUM FROM SCHEMA_VERSION")) {
+            while (resultSet.next()) {
+                appliedChecksums.put(resultSet.getInt(1), resultSet.getLong(2));
+            }
+        }
+        return appliedChecksums;
+    }
+
+    private boolean createIndexIfMissing(Connection connection, IndexDefinition index, Catalog catalog)
+            throws SQLException {
+        if (catalog.hasIndexStartingWith(index)) {
+            return false;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(index.toCreateStatement());
+        }
+        catalog.addIndex(index);
+        return true;
+    }
+
+    /**
+     * Tables and index columns of the PUBLIC schema, read in two queries and updated as indexes are created.
+     */
+    private static final class Catalog {
+        private final Set<String> tables = new HashSet<>();
+        private final Map<String, Map<String, List<String>>> indexColumnsByTable = new HashMap<>();
+
+        private static Catalog read(Connection connection) throws SQLException {
+            Catalog catalog = new Catalog();
+            catalog.load(connection);
+            return catalog;
+        }
+
+        private void load(Connection connection) throws SQLException {
+            try (Statement statement = connection.createStatement()) {
+                try (ResultSet resultSet = statement.executeQuery("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES " +
+                        "WHERE TABLE_SCHEMA = 'PUBLIC'")) {
+                    while (resultSet.next()) {
+                        tables.add(resultSet.getString(1));
+                    }
+                }
+                try (ResultSet resultSet = statement.executeQuery("SELECT TABLE_NAME, INDEX_NAME, COLUMN_NAME " +
+                        "FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_SCHEMA = 'PUBLIC' " +
+                        "ORDER BY TABLE_NAME, INDEX_NAME, ORDINAL_POSITION")) {
+                    while (resultSet.next()) {
+                        indexColumnsByTable.computeIfAbsent(resultSet.getString(1), table -> new LinkedHashMap<>())
+                                .computeIfAbsent(resultSet.getString(2), name -> new ArrayList<>())
+                                .add(resultSet.getString(3));
+                    }
+                }
+            }
+        }
+
+        private boolean hasIndexStartingWith(IndexDefinition index) {
+            List<String> wanted = Arrays.asList(index.getColumnNames());
+            return indexColumnsByTable.getOrDefault(index.getTableName(), Map.of()).values().stream()
+                    .anyMatch(columns -> columns.size() >= wanted.size()
+                            && columns.subList(0, wanted.size()).equals(wanted));
+        }
+
+        private void addIndex(IndexDefinition index) {
+            indexColumnsByTable.computeIfAbsent(index.getTableName(), table -> new LinkedHashMap<>())
+                    .put(index.getName(), new ArrayList<>(Arrays.asList(index.getColumnNames())));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package carsharing.model;
+
+/**
+ * Number of cars a company has and how many of them are rented, as shown in the fleet report.
+ */
+public record CompanyUtilization(int companyId, String companyName, int totalCars, int rentedCars) {
+
+    public int availableCars() {
+        return totalCars - rentedCars;
+    }
+
+    /**
+     * @return Returns the share of the company's cars that is rented, between 0 and 1. 0 for a company without cars.
+     */
+    public double utilization() {
+        return totalCars == 0 ? 0 : (double) rentedCars / totalCars;
+    }
+}
@@ -0,0 +1,20 @@
+package carsharing.model;
+
+/**
+ * Row counts, highest IDs and a checksum of the rentals, taken together from the database.
+ * Two fingerprints that differ mean the tables changed in between. Renaming a row keeps the fingerprint.
+ */
+public record DatabaseFingerprint(long companyCount, long maximumCompanyId, long carCount, long maximumCarId,
+                                  long customerCount, long maximumCustomerId, long rentalCount,
+                                  long rentalChecksum) {
+
+    /**
+     * @param customerId
+     * @param carId
+     * @return Returns the term one rental adds to the rental checksum. The same formula runs in SQL,
+     * so a checksum computed from the rentals in memory can be compared with the one of the database.
+     */
+    public static long rentalChecksumTerm(int customerId, int carId) {
+        return Math.floorMod((customerId * 65599L) ^ (carId * 2654435761L), 1_000_000_007L);
+    }
+}
@@ -0,0 +1,23 @@
+package carsharing.model;
+
+import java.time.Instant;
+
+/**
+ * A car being rented or returned, captured when it happened so it can be written to RENTAL_HISTORY later.
+ * Return events do not know the company; it was already recorded by the matching rent event.
+ */
+public record RentalEvent(Type type, int customerId, int carId, int companyId, Instant occurredAt) {
+
+    public enum Type {
+        RENTED,
+        RETURNED
+    }
+
+    public static RentalEvent rented(Customer customer, Car car) {
+        return new RentalEvent(Type.RENTED, customer.getId(), car.getId(), car.getCompanyId(), Instant.now());
+    }
+
+    public static RentalEvent returned(Customer customer, int carId) {
+        return new RentalEvent(Type.RETURNED, customer.getId(), carId, 0, Instant.now());
+    }
+}
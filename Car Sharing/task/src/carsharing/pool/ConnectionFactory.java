@@ -0,0 +1,12 @@
+package carsharing.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Opens a new physical connection for the Connection Pool.
+ */
+@FunctionalInterface
+public interface ConnectionFactory {
+    Connection openConnection() throws SQLException;
+}
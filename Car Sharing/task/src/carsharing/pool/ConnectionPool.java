@@ -0,0 +1,288 @@
+package carsharing.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of JDBC connections.
+ * <p>
+ * A connection is borrowed with {@link #borrowConnection()} and handed back by calling close() on it,
+ * so callers can use try-with-resources per operation. The number of borrowed connections is capped
+ * by the maximum size and callers wait up to the borrow timeout for one to be returned.
+ * Idle connections are validated before being handed out and evicted in the background
+ * once they have been idle longer than the idle timeout, keeping at least the minimum size open.
+ * Each physical connection keeps its own prepared statement cache, see {@link StatementCache}.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private final ConnectionFactory connectionFactory;
+    private final PoolConfig config;
+    private final LinkedBlockingDeque<PooledEntry> idleConnections = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final StatementCacheStats statementCacheStats = new StatementCacheStats();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    public ConnectionPool(ConnectionFactory connectionFactory, PoolConfig config) {
+        if (config.getMinimumSize() > config.getMaximumSize()) {
+            throw new IllegalArgumentException("Minimum pool size cannot be larger than the maximum size.");
+        }
+        this.connectionFactory = connectionFactory;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaximumSize(), true);
+
+        fillToMinimum();
+
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getEvictionIntervalMillis();
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return Returns a connection from the pool, opening a new one if no idle connection is available.
+     * @throws SQLTimeoutException if no connection could be borrowed within the borrow timeout.
+     */
+    public Connection borrowConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+
+        long start = System.nanoTime();
+        waiters.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(config.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection.", e);
+        } finally {
+            waiters.decrementAndGet();
+        }
+        recordWait(System.nanoTime() - start);
+
+        if (!acquired) {
+            timeoutCount.increment();
+            throw new SQLTimeoutException("Timed out after " + config.getBorrowTimeoutMillis()
+                    + "ms waiting for a connection (" + getMetrics() + ")");
+        }
+
+        try {
+            PooledEntry entry = takeIdleOrOpen();
+            activeConnections.incrementAndGet();
+            borrowCount.increment();
+            return entry.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public PoolMetrics getMetrics() {
+        return new PoolMetrics(activeConnections.get(), idleConnections.size(), waiters.get(),
+                borrowCount.sum(), timeoutCount.sum(), totalWaitNanos.sum(), maxWaitNanos.get());
+    }
+
+    public StatementCacheStats getStatementCacheStats() {
+        return statementCacheStats;
+    }
+
+    /**
+     * Closes all idle connections and stops the eviction thread. Borrowed connections are closed
+     * as they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idleConnections.pollFirst()) != null) {
+            discard(entry);
+        }
+    }
+
+    private PooledEntry takeIdleOrOpen() throws SQLException {
+        PooledEntry entry;
+        while ((entry = idleConnections.pollFirst()) != null) {
+            if (!config.isValidateOnBorrow() || isValid(entry)) {
+                return entry;
+            }
+            discard(entry);
+        }
+        return open();
+    }
+
+    private boolean isValid(PooledEntry entry) {
+        try {
+            return entry.connection.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledEntry open() throws SQLException {
+        Connection connection = connectionFactory.openConnection();
+        totalConnections.incrementAndGet();
+        return new PooledEntry(connection);
+    }
+
+    private void release(PooledEntry entry) {
+        try {
+            if (closed || entry.connection.isClosed()) {
+                discard(entry);
+                return;
+            }
+            if (!entry.connection.getAutoCommit()) {
+                entry.connection.rollback();
+                entry.connection.setAutoCommit(true);
+            }
+            entry.lastReturned = System.nanoTime();
+            idleConnections.offerFirst(entry);
+        } catch (SQLException e) {
+            discard(entry);
+        } finally {
+            activeConnections.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private void discard(PooledEntry entry) {
+        totalConnections.decrementAndGet();
+        entry.statementCache.closeAll();
+        try {
+            entry.connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void evictIdleConnections() {
+        long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+        long now = System.nanoTime();
+
+        Iterator<PooledEntry> oldestFirst = idleConnections.descendingIterator();
+        while (oldestFirst.hasNext() && totalConnections.get() > config.getMinimumSize()) {
+            PooledEntry entry = oldestFirst.next();
+            if (now - entry.lastReturned > idleTimeoutNanos && idleConnections.remove(entry)) {
+                discard(entry);
+            }
+        }
+        fillToMinimum();
+    }
+
+    private void fillToMinimum() {
+        while (!closed && totalConnections.get() < config.getMinimumSize()) {
+            try {
+                PooledEntry entry = open();
+                entry.lastReturned = System.nanoTime();
+                idleConnections.offerLast(entry);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * A physical connection owned by the pool. Each borrow hands out a new proxy so a connection
+     * closed twice by a caller cannot be returned to the pool twice.
+     */
+    private final class PooledEntry {
+        private final Connection connection;
+        private final StatementCache statementCache;
+        private volatile long lastReturned;
+
+        private PooledEntry(Connection connection) {
+            this.connection = connection;
+            this.statementCache = new StatementCache(connection, config.getStatementCacheSize(), statementCacheStats);
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new LeaseHandler(this));
+        }
+    }
+
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean returned;
+
+        private LeaseHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        release(entry);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || entry.connection.isClosed();
+                }
+                case "toString" -> {
+                    return "Pooled" + entry.connection;
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                default -> {
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool.");
+                    }
+                }
+            }
+
+            if (method.getName().equals("prepareStatement")) {
+                if (args.length == 1) {
+                    return entry.statementCache.prepareStatement((String) args[0], Statement.NO_GENERATED_KEYS);
+                }
+                if (args.length == 2 && args[1] instanceof Integer autoGeneratedKeys) {
+                    return entry.statementCache.prepareStatement((String) args[0], autoGeneratedKeys);
+                }
+            }
+
+            try {
+                return method.invoke(entry.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package carsharing.pool;
+
+/**
+ * Settings for the Connection Pool. Defaults are sized for the interactive console application
+ * and can be changed with the setters before the pool is created.
+ */
+public class PoolConfig {
+    private int minimumSize = 1;
+    private int maximumSize = 10;
+    private long borrowTimeoutMillis = 5_000;
+    private long idleTimeoutMillis = 60_000;
+    private long evictionIntervalMillis = 30_000;
+    private int validationTimeoutSeconds = 1;
+    private boolean validateOnBorrow = true;
+    private int statementCacheSize = 32;
+    private long slowQueryThresholdMillis = -1;
+    private boolean explainSlowQueries;
+
+    public int getMinimumSize() {
+        return minimumSize;
+    }
+
+    public void setMinimumSize(int minimumSize) {
+        if (minimumSize < 0) {
+            throw new IllegalArgumentException("Minimum pool size cannot be negative: " + minimumSize);
+        }
+        this.minimumSize = minimumSize;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum pool size must be at least 1: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    public long getBorrowTimeoutMillis() {
+        return borrowTimeoutMillis;
+    }
+
+    public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public long getEvictionIntervalMillis() {
+        return evictionIntervalMillis;
+    }
+
+    public void setEvictionIntervalMillis(long evictionIntervalMillis) {
+        this.evictionIntervalMillis = evictionIntervalMillis;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    public boolean isValidateOnBorrow() {
+        return validateOnBorrow;
+    }
+
+    public void setValidateOnBorrow(boolean validateOnBorrow) {
+        this.validateOnBorrow = validateOnBorrow;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * @param statementCacheSize Number of prepared statements cached per connection. Zero disables the cache.
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size cannot be negative: " + statementCacheSize);
+        }
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    /**
+     * @param slowQueryThresholdMillis Statements running at least this long are logged, see {@link SlowQueryLog}.
+     *                                 A negative value turns the slow-query log off, which is the default.
+     */
+    public void setSlowQueryThresholdMillis(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+    }
+
+    public boolean isExplainSlowQueries() {
+        return explainSlowQueries;
+    }
+
+    public void setExplainSlowQueries(boolean explainSlowQueries) {
+        this.explainSlowQueries = explainSlowQueries;
+    }
+}
@@ -0,0 +1,60 @@
+package carsharing.pool;
+
+/**
+ * Point in time snapshot of the Connection Pool counters.
+ */
+public class PoolMetrics {
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int waiters;
+    private final long borrowCount;
+    private final long timeoutCount;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+
+    public PoolMetrics(int activeConnections, int idleConnections, int waiters, long borrowCount,
+                       long timeoutCount, long totalWaitNanos, long maxWaitNanos) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.waiters = waiters;
+        this.borrowCount = borrowCount;
+        this.timeoutCount = timeoutCount;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getWaiters() {
+        return waiters;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public double getAverageWaitMillis() {
+        return borrowCount == 0 ? 0 : totalWaitNanos / 1_000_000.0 / borrowCount;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d, idle=%d, waiters=%d, borrowed=%d, timeouts=%d, avgWait=%.3fms, maxWait=%.3fms",
+                activeConnections, idleConnections, waiters, borrowCount, timeoutCount,
+                getAverageWaitMillis(), getMaxWaitMillis());
+    }
+}
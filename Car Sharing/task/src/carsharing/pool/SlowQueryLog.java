@@ -0,0 +1,291 @@
+package carsharing.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Logs statements that take longer than a threshold, with their SQL, bind parameters, row count
+ * and elapsed time, and optionally the EXPLAIN plan H2 chose for them.
+ * <p>
+ * {@link #wrap(Connection)} returns a connection whose statements time every execute call. A fast
+ * statement costs two System.nanoTime() calls and keeping its bind values in an array; everything
+ * else (formatting, counting rows, EXPLAIN) only happens for a statement that was already slow.
+ * The rows of a slow query are counted as the caller reads them and the query is logged when its
+ * ResultSet or statement is closed.
+ */
+public class SlowQueryLog {
+    private static final Logger logger = Logger.getLogger(SlowQueryLog.class.getName());
+    private static final int MAXIMUM_LOGGED_VALUE_LENGTH = 100;
+    private static final Pattern EXPLAINABLE =
+            Pattern.compile("\\s*(SELECT|WITH|INSERT|UPDATE|DELETE|MERGE)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final long thresholdNanos;
+    private final boolean explain;
+    private final LongAdder slowStatements = new LongAdder();
+
+    /**
+     * @param thresholdMillis Statements running at least this long are logged. 0 logs every statement.
+     * @param explain         Also logs the EXPLAIN output of slow statements.
+     */
+    public SlowQueryLog(long thresholdMillis, boolean explain) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.explain = explain;
+    }
+
+    public long getSlowStatements() {
+        return slowStatements.sum();
+    }
+
+    /**
+     * @param connection
+     * @return Returns a connection that forwards every call to the given one and times the statements it creates.
+     * Closing it closes the given connection.
+     */
+    public Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = forward(connection, method, args);
+            if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement statement) {
+                return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                        new Class<?>[]{PreparedStatement.class},
+                        new StatementHandler(connection, statement, (String) args[0]));
+            }
+            if (method.getName().equals("createStatement") && result instanceof Statement statement) {
+                return Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                        new Class<?>[]{Statement.class}, new StatementHandler(connection, statement, null));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Times the execute calls of one statement. Bind values are kept as they are set, so they can be
+     * logged with the SQL if an execution turns out to be slow.
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final Connection connection;
+        private final Statement statement;
+        private final String preparedSql;
+        private Object[] binds = new Object[8];
+        private int bindCount;
+        private int batchSize;
+        private SlowExecution pending;
+
+        private StatementHandler(Connection connection, Statement statement, String preparedSql) {
+            this.connection = connection;
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                bind(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                Arrays.fill(binds, null);
+                bindCount = 0;
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            } else if (name.equals("close")) {
+                logPending();
+            }
+            return forward(statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            int executedBatchSize = batchSize;
+            batchSize = 0;
+            logPending();
+
+            long start = System.nanoTime();
+            Object result = forward(statement, method, args);
+            long elapsedNanos = System.nanoTime() - start;
+            if (elapsedNanos < thresholdNanos) {
+                return result;
+            }
+
+            SlowExecution slow = new SlowExecution(sql, describeBinds(), executedBatchSize, elapsedNanos);
+            if (result instanceof ResultSet resultSet) {
+                pending = slow;
+                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                        new CountingResultSet(resultSet, this));
+            }
+            if (result instanceof Integer updateCount) {
+                slow.rows = updateCount;
+            } else if (result instanceof Long updateCount) {
+                slow.rows = updateCount;
+            } else if (result instanceof int[] updateCounts) {
+                slow.rows = Arrays.stream(updateCounts).filter(count -> count > 0).sum();
+            } else if (result instanceof long[] updateCounts) {
+                slow.rows = Arrays.stream(updateCounts).filter(count -> count > 0).sum();
+            } else if (Boolean.FALSE.equals(result)) {
+                slow.rows = statement.getUpdateCount();
+            }
+            log(slow);
+            return result;
+        }
+
+        private void bind(int index, Object value) {
+            if (index >= binds.length) {
+                binds = Arrays.copyOf(binds, Math.max(index + 1, binds.length * 2));
+            }
+            binds[index] = value;
+            bindCount = Math.max(bindCount, index);
+        }
+
+        private List<Object> describeBinds() {
+            List<Object> values = new ArrayList<>();
+            for (int index = 1; index <= bindCount; index++) {
+                values.add(binds[index]);
+            }
+            return values;
+        }
+
+        private void logPending() {
+            if (pending != null) {
+                SlowExecution slow = pending;
+                pending = null;
+                log(slow);
+            }
+        }
+
+        private void log(SlowExecution slow) {
+            slowStatements.increment();
+            StringBuilder message = new StringBuilder()
+                    .append(String.format("Slow statement: %.3f ms, ", slow.elapsedNanos / 1_000_000.0))
+                    .append(slow.rows < 0 ? "rows unknown" : slow.rows + " row(s)");
+            if (slow.batchSize > 0) {
+                message.append(", batch of ").append(slow.batchSize).append(" (binds of the last row)");
+            }
+            message.append("\n  ").append(slow.sql);
+            if (!slow.binds.isEmpty()) {
+                message.append("\n  binds ").append(formatBinds(slow.binds));
+            }
+            if (explain && EXPLAINABLE.matcher(slow.sql).lookingAt()) {
+                message.append(explain(slow));
+            }
+            logger.log(Level.WARNING, message.toString());
+        }
+
+        /**
+         * Runs EXPLAIN with the same binds on the physical connection, past the statement cache,
+         * so the plan statements do not push the DAO statements out of it.
+         */
+        private String explain(SlowExecution slow) {
+            StringBuilder plan = new StringBuilder("\n  plan:");
+            try (PreparedStatement explainStatement = connection.unwrap(Connection.class)
+                    .prepareStatement("EXPLAIN " + slow.sql)) {
+                for (int i = 0; i < slow.binds.size(); i++) {
+                    explainStatement.setObject(i + 1, slow.binds.get(i));
+                }
+                try (ResultSet resultSet = explainStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append("\n    ").append(resultSet.getString(1).replace("\n", "\n    "));
+                    }
+                }
+            } catch (SQLException e) {
+                plan.append(" not available (").append(e.getMessage()).append(')');
+            }
+            return plan.toString();
+        }
+    }
+
+    private static String formatBinds(List<Object> binds) {
+        StringBuilder formatted = new StringBuilder("[");
+        for (int i = 0; i < binds.size(); i++) {
+            if (i > 0) {
+                formatted.append(", ");
+            }
+            Object value = binds.get(i);
+            String text = value instanceof String ? "'" + value + "'" : String.valueOf(value);
+            if (text.length() > MAXIMUM_LOGGED_VALUE_LENGTH) {
+                text = text.substring(0, MAXIMUM_LOGGED_VALUE_LENGTH) + "...";
+            }
+            formatted.append(text);
+        }
+        return formatted.append(']').toString();
+    }
+
+    private static final class SlowExecution {
+        private final String sql;
+        private final List<Object> binds;
+        private final int batchSize;
+        private final long elapsedNanos;
+        private long rows = -1;
+
+        private SlowExecution(String sql, List<Object> binds, int batchSize, long elapsedNanos) {
+            this.sql = sql;
+            this.binds = binds;
+            this.batchSize = batchSize;
+            this.elapsedNanos = elapsedNanos;
+        }
+    }
+
+    /**
+     * ResultSet of a slow query. Counts the rows read and logs the query when it is closed.
+     */
+    private static final class CountingResultSet implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final StatementHandler statementHandler;
+
+        private CountingResultSet(ResultSet resultSet, StatementHandler statementHandler) {
+            this.resultSet = resultSet;
+            this.statementHandler = statementHandler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = forward(resultSet, method, args);
+            SlowExecution slow = statementHandler.pending;
+            if (slow != null) {
+                if (method.getName().equals("next")) {
+                    slow.rows = Math.max(slow.rows, 0) + (Boolean.TRUE.equals(result) ? 1 : 0);
+                } else if (method.getName().equals("close")) {
+                    statementHandler.logPending();
+                }
+            }
+            return result;
+        }
+    }
+}
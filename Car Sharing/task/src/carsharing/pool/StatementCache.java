@@ -0,0 +1,190 @@
+package carsharing.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL text and
+ * whether generated keys are requested.
+ * <p>
+ * Callers get a lease of the cached statement and close it as usual; closing the lease clears the
+ * parameters and any pending batch, puts back the fetch size, max rows and query timeout if the lease
+ * changed them, and keeps the statement open for the next caller. If the same SQL is already leased
+ * (e.g. a nested query on the same connection) an uncached statement is handed out instead.
+ * Statements pushed out of the cache are closed once they are no longer leased.
+ */
+class StatementCache {
+    private static final Set<String> RESTORED_SETTINGS =
+            Set.of("setFetchSize", "setMaxRows", "setLargeMaxRows", "setQueryTimeout");
+    private final Connection connection;
+    private final int maximumSize;
+    private final StatementCacheStats stats;
+    private final LinkedHashMap<StatementKey, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection connection, int maximumSize, StatementCacheStats stats) {
+        this.connection = connection;
+        this.maximumSize = maximumSize;
+        this.stats = stats;
+    }
+
+    PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        StatementKey key = new StatementKey(sql, autoGeneratedKeys);
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.leased) {
+            stats.recordHit(sql);
+            return cached.lease();
+        }
+
+        stats.recordMiss(sql);
+        PreparedStatement statement = connection.prepareStatement(sql, autoGeneratedKeys);
+        if (cached != null || maximumSize == 0) {
+            return statement;
+        }
+
+        cached = new CachedStatement(statement);
+        statements.put(key, cached);
+        evictEldest();
+        return cached.lease();
+    }
+
+    /**
+     * Closes every cached statement. Called before the physical connection is closed.
+     */
+    void closeAll() {
+        for (CachedStatement cached : statements.values()) {
+            cached.closeQuietly();
+        }
+        statements.clear();
+    }
+
+    private void evictEldest() {
+        Iterator<Map.Entry<StatementKey, CachedStatement>> eldestFirst = statements.entrySet().iterator();
+        while (statements.size() > maximumSize && eldestFirst.hasNext()) {
+            CachedStatement cached = eldestFirst.next().getValue();
+            eldestFirst.remove();
+            stats.recordEviction();
+            cached.evicted = true;
+            if (!cached.leased) {
+                cached.closeQuietly();
+            }
+        }
+    }
+
+    private record StatementKey(String sql, int autoGeneratedKeys) {
+    }
+
+    private static final class CachedStatement {
+        private final PreparedStatement statement;
+        private final int defaultFetchSize;
+        private final int defaultMaxRows;
+        private final int defaultQueryTimeout;
+        private boolean leased;
+        private boolean evicted;
+        private boolean settingsChanged;
+        private boolean batched;
+
+        private CachedStatement(PreparedStatement statement) throws SQLException {
+            this.statement = statement;
+            this.defaultFetchSize = statement.getFetchSize();
+            this.defaultMaxRows = statement.getMaxRows();
+            this.defaultQueryTimeout = statement.getQueryTimeout();
+        }
+
+        private PreparedStatement lease() {
+            leased = true;
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, new Lease(this));
+        }
+
+        private void release() throws SQLException {
+            leased = false;
+            if (evicted) {
+                statement.close();
+                return;
+            }
+            statement.clearParameters();
+            if (batched) {
+                statement.clearBatch();
+                batched = false;
+            }
+            if (settingsChanged) {
+                // max rows first, since H2 rejects a fetch size above the current max rows
+                statement.setMaxRows(defaultMaxRows);
+                statement.setFetchSize(defaultFetchSize);
+                statement.setQueryTimeout(defaultQueryTimeout);
+                settingsChanged = false;
+            }
+        }
+
+        private void track(String methodName) {
+            if (RESTORED_SETTINGS.contains(methodName)) {
+                settingsChanged = true;
+            } else if (methodName.equals("addBatch")) {
+                batched = true;
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * One lease of a cached statement. Closing it twice only releases the statement once.
+     */
+    private static final class Lease implements InvocationHandler {
+        private final CachedStatement cached;
+        private boolean returned;
+
+        private Lease(CachedStatement cached) {
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        cached.release();
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || cached.statement.isClosed();
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                default -> {
+                    if (returned) {
+                        throw new SQLException("Statement has already been closed.");
+                    }
+                    cached.track(method.getName());
+                }
+            }
+
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package carsharing.pool;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit and miss counters of the prepared statement caches, shared by every connection in the pool.
+ * Counters are also kept per SQL text so single queries can be checked for plan re-use.
+ */
+public class StatementCacheStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final Map<String, LongAdder> hitsBySql = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> missesBySql = new ConcurrentHashMap<>();
+
+    void recordHit(String sql) {
+        hits.increment();
+        hitsBySql.computeIfAbsent(sql, key -> new LongAdder()).increment();
+    }
+
+    void recordMiss(String sql) {
+        misses.increment();
+        missesBySql.computeIfAbsent(sql, key -> new LongAdder()).increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public long getHits(String sql) {
+        LongAdder counter = hitsBySql.get(sql);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public long getMisses(String sql) {
+        LongAdder counter = missesBySql.get(sql);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * @return Returns "hits/misses" for every SQL text seen so far, sorted by SQL.
+     */
+    public Map<String, String> getCountsBySql() {
+        Map<String, String> counts = new TreeMap<>();
+        missesBySql.keySet().forEach(sql -> counts.put(sql, getHits(sql) + "/" + getMisses(sql)));
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, evictions=%d, hitRatio=%.2f",
+                getHits(), getMisses(), getEvictions(), getHitRatio());
+    }
+}
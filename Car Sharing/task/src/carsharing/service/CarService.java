@@ -1,19 +1,46 @@
 package carsharing.service;
 
+import carsharing.async.AsyncCarDao;
+import carsharing.cache.CacheStats;
+import carsharing.cache.CachingCarDao;
 import carsharing.dao.CarDao;
+import carsharing.dao.InsertOutcome;
+import carsharing.dao.Page;
 import carsharing.daoimpl.CarDaoImpl;
+import carsharing.index.AvailabilityIndex;
+import carsharing.index.CarSearchIndex;
+import carsharing.metrics.DaoMetrics;
 import carsharing.model.Car;
 import carsharing.model.Company;
 import carsharing.model.Customer;
 
-import java.sql.Connection;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class CarService {
     private CarDao carDao;
+    private final CacheStats cacheStats;
+    private final AvailabilityIndex availabilityIndex;
+    private final AsyncCarDao asyncCarDao;
+    private final CarSearchIndex carSearchIndex = new CarSearchIndex();
+    private volatile boolean carSearchIndexLoaded;
 
-    public CarService(Connection connection) {
-        carDao = new CarDaoImpl(connection);
+    /**
+     * @param databaseService
+     * @param cacheMaximumSize  Lookups by ID and by name are cached, up to this many entries for each of them.
+     * @param availabilityIndex Index the car lists are answered from. It must be shared with the Customer Service,
+     *                          which updates it on rent and return.
+     */
+    public CarService(DatabaseService databaseService, int cacheMaximumSize, AvailabilityIndex availabilityIndex) {
+        CachingCarDao cachingCarDao = new CachingCarDao(
+                DaoMetrics.instrument(CarDao.class, new CarDaoImpl(databaseService)), cacheMaximumSize);
+        carDao = cachingCarDao;
+        cacheStats = cachingCarDao.getStats();
+        this.availabilityIndex = availabilityIndex;
+        asyncCarDao = new AsyncCarDao(carDao, databaseService.getAsyncExecutor());
     }
 
     /**
@@ -22,10 +49,36 @@ public class CarService {
      * @param carName
      * @return
      * Accepts a Company object (which the Car belongs to) and a Car name to create a
-     * Car object to save into Car Database
+     * Car object to save into Car Database. Returns the saved Car with its ID, or an empty
+     * Optional if the car already exists.
+     */
+    public Optional<Car> createCar(Company company, String carName) {
+        Optional<Car> car = carDao.addCar(new Car(carName, company.getId()));
+        car.ifPresent(availabilityIndex::addCar);
+        car.ifPresent(carSearchIndex::addCar);
+        return car;
+    }
+
+    /**
+     *
+     * @param company
+     * @param carNames
+     * @return
+     * Bulk version of createCar for onboarding a whole fleet. Cars are inserted in JDBC batches and
+     * one outcome (inserted, duplicate or failed) is returned per name, in the same order.
      */
-    public boolean createCar(Company company, String carName) {
-        return carDao.addCar(new Car(carName, company.getId()));
+    public List<InsertOutcome> createCars(Company company, List<String> carNames) {
+        List<Car> cars = carNames.stream()
+                .map(carName -> new Car(carName, company.getId()))
+                .collect(Collectors.toList());
+        List<InsertOutcome> outcomes = carDao.addCars(cars);
+        for (int i = 0; i < cars.size(); i++) {
+            if (outcomes.get(i) == InsertOutcome.INSERTED) {
+                availabilityIndex.addCar(cars.get(i));
+                carSearchIndex.addCar(cars.get(i));
+            }
+        }
+        return outcomes;
     }
 
     /**
@@ -38,14 +91,111 @@ public class CarService {
         return carDao.getCarById(customer.getRentedCarId()).orElseThrow();
     }
 
+    /**
+     * @param customer
+     * @return Async version of getCar.
+     */
+    public CompletableFuture<Car> getCarAsync(Customer customer) {
+        return asyncCarDao.getCarByIdAsync(customer.getRentedCarId()).thenApply(Optional::orElseThrow);
+    }
+
+    /**
+     * @param customer
+     * @return Returns the ID of the company of the customer's rented car, read from the Availability Index
+     * without a query, or 0 if the car is not in the index.
+     */
+    public int getRentedCarCompanyId(Customer customer) {
+        return availabilityIndex.getCompanyId(customer.getRentedCarId());
+    }
+
+    /**
+     * @param carId
+     * @return Returns the Car with the given ID, or an empty Optional if there is none.
+     */
+    public Optional<Car> findCar(int carId) {
+        return carDao.getCarById(carId);
+    }
+
+    public CompletableFuture<Optional<Car>> findCarAsync(int carId) {
+        return asyncCarDao.getCarByIdAsync(carId);
+    }
+
     /**
      *
      * @param company
      * @return
      * Returns a List of Cars based off implementation (Current implementation returns
-     * all available cars that are not rented and are from the specific company)
+     * all available cars that are not rented and are from the specific company, read from the
+     * Availability Index instead of the database)
      */
     public List<Car> getCarList(Company company) {
-        return carDao.getAvailableCarList(company);
+        return availabilityIndex.getFreeCars(company.getId());
+    }
+
+    /**
+     * @param company
+     * @param query Prefix or misspelled name, for example "hyu" or "hundai venue".
+     * @param limit
+     * @return Returns up to limit cars of the company matching the query, best match first.
+     * The search index is filled from the database on the first search and kept up to date by createCar.
+     */
+    public List<Car> searchCars(Company company, String query, int limit) {
+        return getCarSearchIndex().search(query, company.getId(), carId -> true, limit);
+    }
+
+    /**
+     * @param company
+     * @param query
+     * @param limit
+     * @return Same as searchCars, but only returns cars that are not rented.
+     */
+    public List<Car> searchAvailableCars(Company company, String query, int limit) {
+        return getCarSearchIndex().search(query, company.getId(), availabilityIndex::isFree, limit);
+    }
+
+    /*
+    Adding a car twice does nothing, so cars created while the index is being filled are not lost
+    and not doubled, whichever of the two adds them first.
+     */
+    private CarSearchIndex getCarSearchIndex() {
+        if (!carSearchIndexLoaded) {
+            synchronized (carSearchIndex) {
+                if (!carSearchIndexLoaded) {
+                    try (Stream<Car> cars = carDao.streamAllCars()) {
+                        cars.forEach(carSearchIndex::addCar);
+                    }
+                    carSearchIndexLoaded = true;
+                }
+            }
+        }
+        return carSearchIndex;
+    }
+
+    /**
+     * @param fetchSize Rows transferred from the database at a time.
+     * @return Returns every Car as a stream read from the open ResultSet, see CompanyService.streamCompanies.
+     */
+    public Stream<Car> streamAllCars(int fetchSize) {
+        return carDao.streamAllCars(fetchSize);
+    }
+
+    /**
+     *
+     * @param company
+     * @param afterId
+     * @param pageSize
+     * @return
+     * Returns one page of the company's available cars, starting after the car with the given ID
+     * (0 for the first page).
+     */
+    public Page<Car> getCarPage(Company company, int afterId, int pageSize) {
+        return availabilityIndex.getFreeCarPage(company.getId(), afterId, pageSize);
+    }
+
+    /**
+     * @return Returns the hit, miss, eviction and load latency counters of the lookup caches.
+     */
+    public CacheStats getCacheStats() {
+        return cacheStats;
     }
 }
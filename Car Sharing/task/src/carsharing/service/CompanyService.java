@@ -1,17 +1,57 @@
 package carsharing.service;
 
+import carsharing.async.AsyncCompanyDao;
+import carsharing.cache.CacheStats;
+import carsharing.cache.CachingCompanyDao;
+import carsharing.cache.EntityCache;
 import carsharing.dao.CompanyDao;
+import carsharing.dao.InsertOutcome;
+import carsharing.dao.Page;
 import carsharing.daoimpl.CompanyDaoImpl;
+import carsharing.metrics.DaoMetrics;
 import carsharing.model.Company;
 
-import java.sql.Connection;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class CompanyService {
     private CompanyDao companyDao;
+    private final CacheStats cacheStats;
+    private final AsyncCompanyDao asyncCompanyDao;
+    private final CachingCompanyDao cachingCompanyDao;
 
-    public CompanyService(Connection connection) {
-        companyDao = new CompanyDaoImpl(connection);
+    public CompanyService(DatabaseService databaseService) {
+        this(databaseService, EntityCache.DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param databaseService
+     * @param cacheMaximumSize Lookups by ID and by name are cached, up to this many entries for each of them.
+     */
+    public CompanyService(DatabaseService databaseService, int cacheMaximumSize) {
+        cachingCompanyDao = new CachingCompanyDao(
+                DaoMetrics.instrument(CompanyDao.class, new CompanyDaoImpl(databaseService)), cacheMaximumSize);
+        companyDao = cachingCompanyDao;
+        cacheStats = cachingCompanyDao.getStats();
+        asyncCompanyDao = new AsyncCompanyDao(companyDao, databaseService.getAsyncExecutor());
+    }
+
+    /**
+     * @param companies Companies known to be current, for example from a warm-start snapshot. They are put in
+     *                  the lookup caches so the first lookups do not wait for the database.
+     */
+    public void warmUpCache(List<Company> companies) {
+        cachingCompanyDao.preload(companies);
+    }
+
+    /**
+     * Drops every cached lookup, for example when a warm-start snapshot turned out to be out of date.
+     */
+    public void invalidateCache() {
+        cachingCompanyDao.invalidateAll();
     }
 
     /**
@@ -22,6 +62,22 @@ public class CompanyService {
         return companyDao.getCompany(companyId).orElseThrow();
     }
 
+    /**
+     * @param companyId
+     * @return Returns the Company with the given ID, or an empty Optional if there is none.
+     */
+    public Optional<Company> findCompany(int companyId) {
+        return companyDao.getCompany(companyId);
+    }
+
+    /**
+     * @param companyId
+     * @return Async version of getCompany. The future fails with NoSuchElementException if there is no such Company.
+     */
+    public CompletableFuture<Company> getCompanyAsync(int companyId) {
+        return asyncCompanyDao.getCompanyAsync(companyId).thenApply(Optional::orElseThrow);
+    }
+
     /**
      * @return Returns a list of Companies from the Company database.
      */
@@ -29,11 +85,51 @@ public class CompanyService {
         return companyDao.getAllCompanies();
     }
 
+    /**
+     * @param fetchSize Rows transferred from the database at a time.
+     * @return Returns every Company as a stream read from the open ResultSet, for exports and reports that
+     * should not hold the whole table in memory. Close the stream to give the connection back.
+     */
+    public Stream<Company> streamCompanies(int fetchSize) {
+        return companyDao.streamAllCompanies(fetchSize);
+    }
+
+    /**
+     * @param afterId
+     * @param pageSize
+     * @return Returns one page of Companies, starting after the Company with the given ID (0 for the first page).
+     */
+    public Page<Company> getCompanyPage(int afterId, int pageSize) {
+        return companyDao.getCompanyPage(afterId, pageSize);
+    }
+
+    public CompletableFuture<Page<Company>> getCompanyPageAsync(int afterId, int pageSize) {
+        return asyncCompanyDao.getCompanyPageAsync(afterId, pageSize);
+    }
+
     /**
      * @param companyName
-     * @return Creates a Company in the Company database and returns true if it does not exist.
+     * @return Creates a Company in the Company database and returns it with its ID if it does not exist.
      */
-    public boolean createCompany(String companyName) {
+    public Optional<Company> createCompany(String companyName) {
         return companyDao.addCompany(new Company(companyName));
     }
+
+    /**
+     * @param companyNames
+     * @return Bulk version of createCompany. Returns one outcome (inserted, duplicate or failed) per name.
+     */
+    public List<InsertOutcome> createCompanies(List<String> companyNames) {
+        List<Company> companies = companyNames.stream()
+                .map(Company::new)
+                .collect(Collectors.toList());
+        return companyDao.addCompanies(companies);
+    }
+
+    /**
+     * @return Returns the hit, miss, eviction and load latency counters of the lookup caches.
+     */
+    public CacheStats getCacheStats() {
+        return cacheStats;
+    }
 }
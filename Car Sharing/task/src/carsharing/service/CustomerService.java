@@ -1,29 +1,75 @@
 package carsharing.service;
 
+import carsharing.async.AsyncCustomerDao;
+import carsharing.cache.CacheStats;
+import carsharing.cache.CachingCustomerDao;
+import carsharing.concurrent.BoundedExecutor;
 import carsharing.dao.CustomerDao;
+import carsharing.dao.InsertOutcome;
+import carsharing.dao.Page;
+import carsharing.dao.RentalResult;
 import carsharing.daoimpl.CustomerDaoImpl;
+import carsharing.history.RentalHistoryWriter;
+import carsharing.index.AvailabilityIndex;
+import carsharing.metrics.DaoMetrics;
 import carsharing.model.Car;
 import carsharing.model.Customer;
+import carsharing.model.RentalEvent;
 
-import java.sql.Connection;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class CustomerService {
     private CustomerDao customerDao;
+    private final CacheStats cacheStats;
+    private final AvailabilityIndex availabilityIndex;
+    private final RentalHistoryWriter rentalHistoryWriter;
+    private final BoundedExecutor asyncExecutor;
+    private final AsyncCustomerDao asyncCustomerDao;
 
-    public CustomerService(Connection connection) {
-        customerDao = new CustomerDaoImpl(connection);
+    /**
+     * @param databaseService
+     * @param cacheMaximumSize    Lookups by ID and by name are cached, up to this many entries for each of them.
+     * @param availabilityIndex   Index shared with the Car Service, updated here on every rent and return.
+     * @param rentalHistoryWriter Every rent and return is queued here and written to RENTAL_HISTORY in the background.
+     *                            The caller closes it before the Connection Pool.
+     */
+    public CustomerService(DatabaseService databaseService, int cacheMaximumSize, AvailabilityIndex availabilityIndex,
+                           RentalHistoryWriter rentalHistoryWriter) {
+        CachingCustomerDao cachingCustomerDao = new CachingCustomerDao(
+                DaoMetrics.instrument(CustomerDao.class, new CustomerDaoImpl(databaseService)), cacheMaximumSize);
+        customerDao = cachingCustomerDao;
+        cacheStats = cachingCustomerDao.getStats();
+        this.availabilityIndex = availabilityIndex;
+        this.rentalHistoryWriter = rentalHistoryWriter;
+        asyncExecutor = databaseService.getAsyncExecutor();
+        asyncCustomerDao = new AsyncCustomerDao(customerDao, asyncExecutor);
     }
 
     /**
      * @param customerName
-     * @return Method to create a new Customer in Customer table. Returns false upon duplicate record.
+     * @return Method to create a new Customer in Customer table. Returns the Customer with its ID,
+     * or an empty Optional upon duplicate record.
      */
-    public boolean createCustomer(String customerName) {
+    public Optional<Customer> createCustomer(String customerName) {
         Customer customer = new Customer(customerName);
         return customerDao.addCustomer(customer);
     }
 
+    /**
+     * @param customerNames
+     * @return Bulk version of createCustomer. Returns one outcome (inserted, duplicate or failed) per name.
+     */
+    public List<InsertOutcome> createCustomers(List<String> customerNames) {
+        List<Customer> customers = customerNames.stream()
+                .map(Customer::new)
+                .collect(Collectors.toList());
+        return customerDao.addCustomers(customers);
+    }
+
     /**
      * @return Get a copy of all customers saved in database.
      */
@@ -32,13 +78,72 @@ public class CustomerService {
         return customerDao.getCustomerList();
     }
 
+    /**
+     * @param customerId
+     * @return Returns the Customer with the given ID, or an empty Optional if there is none.
+     */
+    public Optional<Customer> findCustomer(int customerId) {
+        return customerDao.getCustomerById(customerId);
+    }
+
+    public CompletableFuture<Optional<Customer>> findCustomerAsync(int customerId) {
+        return asyncCustomerDao.getCustomerByIdAsync(customerId);
+    }
+
+    /**
+     * @param name
+     * @return Returns the Customer with the given name, or an empty Optional if there is none. The name is
+     * looked up through the unique index on CUSTOMER.NAME, so the cost does not depend on the number of customers.
+     */
+    public Optional<Customer> findCustomerByName(String name) {
+        return customerDao.getCustomerByName(name);
+    }
+
+    /**
+     * @param fetchSize Rows transferred from the database at a time.
+     * @return Returns every customer as a stream read from the open ResultSet, see CompanyService.streamCompanies.
+     */
+    public Stream<Customer> streamCustomers(int fetchSize) {
+        return customerDao.streamCustomers(fetchSize);
+    }
+
+    /**
+     * @param afterId
+     * @param pageSize
+     * @return Returns one page of customers, starting after the customer with the given ID (0 for the first page).
+     */
+    public Page<Customer> getCustomerPage(int afterId, int pageSize) {
+        return customerDao.getCustomerPage(afterId, pageSize);
+    }
+
+    public CompletableFuture<Page<Customer>> getCustomerPageAsync(int afterId, int pageSize) {
+        return asyncCustomerDao.getCustomerPageAsync(afterId, pageSize);
+    }
+
     /**
      * @param customer
-     * @return boolean
-     * Runs the internal Update method by setting the Car ID to zero.
+     * @return RentalResult
+     * Clears the customer's rental and frees the car in one transaction.
+     * The Customer object is only changed once the database has been updated.
+     */
+    public RentalResult returnCustomerCar(Customer customer) {
+        int rentedCarId = customer.getRentedCarId();
+        RentalResult result = customerDao.returnCar(customer);
+        if (result == RentalResult.RETURNED) {
+            availabilityIndex.markReturned(rentedCarId);
+            rentalHistoryWriter.record(RentalEvent.returned(customer, rentedCarId));
+            customer.setRentedCarId(0);
+        }
+        return result;
+    }
+
+    /**
+     * @param customer
+     * @return Async version of returnCustomerCar. The Customer object is changed on the executor's thread
+     * before the future completes.
      */
-    public boolean returnCustomerCar(Customer customer) {
-        return updateCustomer(customer, 0);
+    public CompletableFuture<RentalResult> returnCustomerCarAsync(Customer customer) {
+        return asyncExecutor.supply(() -> returnCustomerCar(customer));
     }
 
     /**
@@ -53,33 +158,37 @@ public class CustomerService {
     /**
      * @param customer
      * @param car
-     * @return boolean
-     * Runs the internal Update method by grabbing the Car ID from Car object.
+     * @return RentalResult
+     * Claims the car for the customer in one transaction, which fails with CAR_TAKEN if another session
+     * rented the car after the list was shown. The Customer object is only changed once the database
+     * has been updated.
      */
-    public boolean rentCustomerCar(Customer customer, Car car) {
-        return updateCustomer(customer, car.getId());
+    public RentalResult rentCustomerCar(Customer customer, Car car) {
+        RentalResult result = customerDao.rentCar(customer, car);
+        if (result == RentalResult.RENTED) {
+            availabilityIndex.markRented(car.getId(), customer.getId());
+            rentalHistoryWriter.record(RentalEvent.rented(customer, car));
+            customer.setRentedCarId(car.getId());
+        } else if (result == RentalResult.CAR_TAKEN) {
+            availabilityIndex.markTaken(car.getId());
+        }
+        return result;
     }
 
     /**
      * @param customer
-     * @return boolean
-     * <p>
-     * Method to update the Customer table by updating the customer record to the given ID
-     * or rolling back to previous state if it cannot be updated. Returns true upon success.
+     * @param car
+     * @return Async version of rentCustomerCar. The Customer object is changed on the executor's thread
+     * before the future completes.
      */
-    private boolean updateCustomer(Customer customer, int carId) {
-        boolean ifSuccessful = false;
-        int rentalId = customer.getRentedCarId();
-
-        customer.setRentedCarId(carId);
-
-        if (customerDao.updateCustomer(customer)) {
-            ifSuccessful = true;
-        } else {
-            customer.setRentedCarId(rentalId);
-            customerDao.updateCustomer(customer);
-        }
+    public CompletableFuture<RentalResult> rentCustomerCarAsync(Customer customer, Car car) {
+        return asyncExecutor.supply(() -> rentCustomerCar(customer, car));
+    }
 
-        return ifSuccessful;
+    /**
+     * @return Returns the hit, miss, eviction and load latency counters of the lookup caches.
+     */
+    public CacheStats getCacheStats() {
+        return cacheStats;
     }
 }
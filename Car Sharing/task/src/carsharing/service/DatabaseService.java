@@ -1,32 +1,105 @@
 package carsharing.service;
 
+import carsharing.concurrent.BoundedExecutor;
+import carsharing.pool.ConnectionPool;
+import carsharing.pool.PoolConfig;
+import carsharing.pool.PoolMetrics;
+import carsharing.pool.SlowQueryLog;
+import carsharing.pool.StatementCacheStats;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.SQLException;
 
 /**
  * Class designed to handle and serve connections to database.
+ * Connections are kept in a bounded Connection Pool; callers borrow one per operation
+ * and return it by closing it.
  */
-public class DatabaseService {
+public class DatabaseService implements AutoCloseable {
     private static final String DRIVER = "org.h2.Driver";
-    private static String URL;
+    private static volatile boolean driverLoaded;
+    private final String URL;
+    private final ConnectionPool connectionPool;
+    private final SlowQueryLog slowQueryLog;
+    private final BoundedExecutor asyncExecutor;
+    private final int maximumConnections;
 //    private static final String USER = "";
 //    private static final String PASSWORD = "";
 
     public DatabaseService(String URL) {
-        DatabaseService.URL = URL;
+        this(URL, new PoolConfig());
     }
 
+    public DatabaseService(String URL, PoolConfig poolConfig) {
+        this.URL = URL;
+        this.connectionPool = new ConnectionPool(this::openConnection, poolConfig);
+        this.slowQueryLog = poolConfig.getSlowQueryThresholdMillis() < 0 ? null
+                : new SlowQueryLog(poolConfig.getSlowQueryThresholdMillis(), poolConfig.isExplainSlowQueries());
+        this.asyncExecutor = new BoundedExecutor("database-async", poolConfig.getMaximumSize());
+        this.maximumConnections = poolConfig.getMaximumSize();
+    }
 
-    public Connection getConnection() {
+    /**
+     * @return Borrows a connection from the pool. Closing the connection returns it to the pool.
+     * If the slow-query log is on, the connection is wrapped so that its statements are timed.
+     * @throws SQLException if the pool is exhausted past the borrow timeout or the database cannot be reached.
+     */
+    public Connection getConnection() throws SQLException {
+        Connection connection = connectionPool.borrowConnection();
+        return slowQueryLog == null ? connection : slowQueryLog.wrap(connection);
+    }
+
+    /**
+     * @return Returns the executor the async DAO and service methods run on. At most as many of them run at
+     * once as the pool has connections, so asynchronous callers queue for a thread instead of for a connection.
+     */
+    public BoundedExecutor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * @return Returns the most connections the pool hands out at once.
+     */
+    public int getMaximumConnections() {
+        return maximumConnections;
+    }
+
+    public PoolMetrics getPoolMetrics() {
+        return connectionPool.getMetrics();
+    }
+
+    public StatementCacheStats getStatementCacheStats() {
+        return connectionPool.getStatementCacheStats();
+    }
+
+    @Override
+    public void close() {
+        asyncExecutor.close();
+        connectionPool.close();
+    }
+
+    private Connection openConnection() throws SQLException {
+        loadDriver();
+        Connection connection = DriverManager.getConnection(URL);
+        connection.setAutoCommit(true);
+        return connection;
+    }
+
+    /*
+    The driver registers itself with DriverManager when its class is loaded, which only has to happen
+    once per JVM rather than for every connection the pool opens.
+     */
+    private static void loadDriver() throws SQLException {
+        if (driverLoaded) {
+            return;
+        }
         try {
             Class.forName(DRIVER);
-            Connection connection = DriverManager.getConnection(URL);
-            connection.setAutoCommit(true);
-            return connection;
-        } catch (Exception e) {
-            e.printStackTrace();
+            driverLoaded = true;
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("JDBC driver not found: " + DRIVER, e);
         }
-        return null;
     }
 
 }
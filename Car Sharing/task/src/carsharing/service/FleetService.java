@@ -0,0 +1,99 @@
+package carsharing.service;
+
+import carsharing.analytics.CarCountTask;
+import carsharing.analytics.FleetSnapshot;
+import carsharing.dao.FleetReportDao;
+import carsharing.dao.FleetSnapshotDao;
+import carsharing.daoimpl.FleetReportDaoImpl;
+import carsharing.daoimpl.FleetSnapshotDaoImpl;
+import carsharing.metrics.DaoMetrics;
+import carsharing.model.CompanyUtilization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Fleet-wide analysis over a columnar snapshot of the tables, kept apart from the per-row services.
+ */
+public class FleetService {
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1_000_000;
+    public static final int DEFAULT_CHUNK_SIZE = 250_000;
+    private final FleetSnapshotDao fleetSnapshotDao;
+    private final FleetReportDao fleetReportDao;
+    private final int parallelism;
+    private final int parallelThreshold;
+    private final int chunkSize;
+    private FleetSnapshot snapshot;
+
+    public FleetService(DatabaseService databaseService) {
+        this(databaseService, DEFAULT_PARALLEL_THRESHOLD, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param databaseService
+     * @param parallelThreshold The fleet report is counted in parallel chunks from this many cars on.
+     * @param chunkSize         Width of the car ID range counted by one query of a parallel report.
+     */
+    public FleetService(DatabaseService databaseService, int parallelThreshold, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        fleetSnapshotDao = DaoMetrics.instrument(FleetSnapshotDao.class, new FleetSnapshotDaoImpl(databaseService));
+        fleetReportDao = DaoMetrics.instrument(FleetReportDao.class, new FleetReportDaoImpl(databaseService));
+        parallelism = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                databaseService.getMaximumConnections()));
+        this.parallelThreshold = parallelThreshold;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return Returns the total, rented and available cars of every company, in company ID order.
+     * Up to the parallel threshold this is one grouped query. Past it, the car IDs are split into chunks
+     * that are counted by a fork/join pool, at most one chunk per connection at a time.
+     * Returns an empty list if the counts cannot be read.
+     */
+    public List<CompanyUtilization> getFleetReport() {
+        Optional<FleetReportDao.CarIdRange> carIdRange = fleetReportDao.getCarIdRange();
+        if (carIdRange.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (carIdRange.get().carCount() < parallelThreshold) {
+            return fleetReportDao.getCompanyUtilization();
+        }
+        return getFleetReportInParallel(carIdRange.get());
+    }
+
+    private List<CompanyUtilization> getFleetReportInParallel(FleetReportDao.CarIdRange carIdRange) {
+        Map<Integer, int[]> countsByCompany;
+        ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+        try {
+            countsByCompany = forkJoinPool.invoke(new CarCountTask(fleetReportDao,
+                    carIdRange.minimumId() - 1, carIdRange.maximumId(), chunkSize));
+        } finally {
+            forkJoinPool.shutdown();
+        }
+        if (countsByCompany == null) {
+            return new ArrayList<>();
+        }
+
+        List<CompanyUtilization> companyUtilizationList = new ArrayList<>();
+        boolean ifSuccessful = fleetSnapshotDao.readCompanies(0, (id, name) -> {
+            int[] counts = countsByCompany.getOrDefault(id, new int[2]);
+            companyUtilizationList.add(new CompanyUtilization(id, name, counts[0], counts[1]));
+        });
+        return ifSuccessful ? companyUtilizationList : new ArrayList<>();
+    }
+
+    /**
+     * @return Reads the rows added since the last call and the current rented state, and returns the new snapshot.
+     * The first call loads the whole snapshot. Readers holding the previous snapshot keep using it unchanged.
+     */
+    public synchronized FleetSnapshot refreshSnapshot() {
+        FleetSnapshot current = snapshot;
+        snapshot = current == null ? FleetSnapshot.load(fleetSnapshotDao) : current.refresh(fleetSnapshotDao);
+        return snapshot;
+    }
+}
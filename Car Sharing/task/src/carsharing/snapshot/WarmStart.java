@@ -0,0 +1,132 @@
+package carsharing.snapshot;
+
+import carsharing.dao.FleetSnapshotDao;
+import carsharing.index.AvailabilityIndex;
+import carsharing.model.Company;
+import carsharing.model.DatabaseFingerprint;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Starts the services from the snapshot written at the previous shutdown instead of from the tables.
+ * <p>
+ * The snapshot is trusted right away, so the car lists are answered from memory as soon as the menus
+ * start. A background thread then compares the snapshot's fingerprint with the database. If another process
+ * changed the tables in between, the Availability Index is rebuilt from the database and swapped in, and
+ * the caller drops anything else it filled from the snapshot. Renting still runs its own transaction against
+ * the database, so a car is never rented twice while an out-of-date snapshot is being replaced.
+ */
+public class WarmStart {
+    private static final Logger logger = Logger.getLogger(WarmStart.class.getName());
+    private static final int MAXIMUM_REBUILD_ATTEMPTS = 5;
+
+    private final Path file;
+    private final FleetSnapshotDao fleetSnapshotDao;
+    private Thread verifier;
+
+    /**
+     * @param file             Where the snapshot is read from at start and written to at shutdown.
+     * @param fleetSnapshotDao Reads the fingerprint and the companies.
+     */
+    public WarmStart(Path file, FleetSnapshotDao fleetSnapshotDao) {
+        this.file = file;
+        this.fleetSnapshotDao = fleetSnapshotDao;
+    }
+
+    public Optional<WarmStartSnapshot> load() {
+        return WarmStartSnapshot.read(file);
+    }
+
+    /**
+     * @param snapshot          Snapshot the services were started from.
+     * @param availabilityIndex Index that was filled from the snapshot.
+     * @param rebuild           Builds a new index from the database.
+     * @param onStale           Runs once the index was rebuilt, to drop anything else filled from the snapshot.
+     *                          Compares the fingerprints on a background thread and rebuilds the index if they differ.
+     *                          If rents and returns keep outdating the rebuilds, the last one holds the index's
+     *                          lock, so an out-of-date index is never left in service.
+     */
+    public synchronized void verifyInBackground(WarmStartSnapshot snapshot, AvailabilityIndex availabilityIndex,
+                                                Supplier<AvailabilityIndex> rebuild, Runnable onStale) {
+        verifier = new Thread(() -> {
+            Optional<DatabaseFingerprint> fingerprint = fleetSnapshotDao.getFingerprint();
+            if (fingerprint.isPresent() && fingerprint.get().equals(snapshot.getFingerprint())) {
+                return;
+            }
+            logger.log(Level.INFO, "Warm-start snapshot " + file + " is out of date, rebuilding from the database.");
+            for (int attempt = 1; attempt <= MAXIMUM_REBUILD_ATTEMPTS; attempt++) {
+                long modificationCount = availabilityIndex.getModificationCount();
+                if (availabilityIndex.replaceWith(rebuild.get(), modificationCount)) {
+                    onStale.run();
+                    return;
+                }
+            }
+            logger.log(Level.INFO, "The Availability Index kept changing while it was rebuilt; "
+                    + "rebuilding it again while holding its lock.");
+            availabilityIndex.replaceWith(rebuild);
+            onStale.run();
+        }, "warm-start-check");
+        verifier.setDaemon(true);
+        verifier.start();
+    }
+
+    /**
+     * Waits for the background check, so the database is not closed while it still runs.
+     */
+    public void awaitVerification() {
+        Thread thread;
+        synchronized (this) {
+            thread = verifier;
+        }
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param availabilityIndex Source of the cars and rentals written to the snapshot.
+     * @return Writes the snapshot and returns true. Nothing is written if the index does not add up to the
+     * database's fingerprint, so the next start never trusts contents that were already wrong.
+     */
+    public boolean save(AvailabilityIndex availabilityIndex) {
+        Optional<DatabaseFingerprint> fingerprint = fleetSnapshotDao.getFingerprint();
+        List<Company> companies = new ArrayList<>();
+        boolean companiesRead = fleetSnapshotDao.readCompanies(0, (id, name) -> {
+            Company company = new Company(name);
+            company.setId(id);
+            companies.add(company);
+        });
+        if (fingerprint.isEmpty() || !companiesRead) {
+            return false;
+        }
+
+        WarmStartSnapshot snapshot = WarmStartSnapshot.of(fingerprint.get(), companies, availabilityIndex);
+        DatabaseFingerprint contents = snapshot.computeFingerprint(fingerprint.get().customerCount(),
+                fingerprint.get().maximumCustomerId());
+        if (!contents.equals(fingerprint.get())) {
+            logger.log(Level.WARNING, "Not writing warm-start snapshot " + file
+                    + ": the Availability Index does not match the database.");
+            return false;
+        }
+
+        try {
+            snapshot.write(file);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package carsharing.snapshot;
+
+import carsharing.index.AvailabilityIndex;
+import carsharing.model.Car;
+import carsharing.model.Company;
+import carsharing.model.DatabaseFingerprint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Companies, cars and rentals written to a binary file, so the next start can fill the Availability Index
+ * and the company caches without reading the tables.
+ * <p>
+ * The file is a fixed header followed by the body:
+ * <pre>
+ * header  magic "CSWS" (int), format version (int), body length (int), CRC32 of the body (long)
+ * body    fingerprint (8 longs)
+ *         company count, then per company: ID, name length, UTF-8 name
+ *         car count, then per car: ID, company ID, name length, UTF-8 name
+ *         rental count, then per rental: car ID, customer ID
+ * </pre>
+ * All numbers are big-endian ints unless noted. The file is read through a read-only memory mapping, so it
+ * is not copied into a buffer first, and is written to a temporary file that then replaces the old one,
+ * so a crash while writing leaves the previous snapshot in place.
+ */
+public final class WarmStartSnapshot {
+    private static final Logger logger = Logger.getLogger(WarmStartSnapshot.class.getName());
+    private static final int MAGIC = 0x43535753;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_LENGTH = 4 + 4 + 4 + 8;
+
+    private final DatabaseFingerprint fingerprint;
+    private final List<Company> companies;
+    private final int[] carIds;
+    private final int[] carCompanyIds;
+    private final String[] carNames;
+    private final int[] rentedCarIds;
+    private final int[] renterIds;
+
+    private WarmStartSnapshot(DatabaseFingerprint fingerprint, List<Company> companies, int[] carIds,
+                              int[] carCompanyIds, String[] carNames, int[] rentedCarIds, int[] renterIds) {
+        this.fingerprint = fingerprint;
+        this.companies = companies;
+        this.carIds = carIds;
+        this.carCompanyIds = carCompanyIds;
+        this.carNames = carNames;
+        this.rentedCarIds = rentedCarIds;
+        this.renterIds = renterIds;
+    }
+
+    /**
+     * @param fingerprint       Fingerprint of the database the contents were taken from.
+     * @param companies
+     * @param availabilityIndex Source of the cars and the rentals.
+     * @return Returns a snapshot of the given contents.
+     */
+    public static WarmStartSnapshot of(DatabaseFingerprint fingerprint, List<Company> companies,
+                                       AvailabilityIndex availabilityIndex) {
+        List<int[]> cars = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        availabilityIndex.forEachCar((carId, companyId, name, renterId) -> {
+            cars.add(new int[]{carId, companyId, renterId});
+            names.add(name);
+        });
+
+        int rentalCount = (int) cars.stream().filter(car -> car[2] != 0).count();
+        int[] carIds = new int[cars.size()];
+        int[] carCompanyIds = new int[cars.size()];
+        int[] rentedCarIds = new int[rentalCount];
+        int[] renterIds = new int[rentalCount];
+        for (int i = 0, rental = 0; i < cars.size(); i++) {
+            carIds[i] = cars.get(i)[0];
+            carCompanyIds[i] = cars.get(i)[1];
+            if (cars.get(i)[2] != 0) {
+                rentedCarIds[rental] = cars.get(i)[0];
+                renterIds[rental] = cars.get(i)[2];
+                rental++;
+            }
+        }
+        return new WarmStartSnapshot(fingerprint, List.copyOf(companies), carIds, carCompanyIds,
+                names.toArray(new String[0]), rentedCarIds, renterIds);
+    }
+
+    /**
+     * @param file
+     * @return Returns the snapshot in the file, or an empty Optional if there is no file or it is not a
+     * complete snapshot of this format. The reason a file is rejected is logged.
+     */
+    public static Optional<WarmStartSnapshot> read(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_LENGTH || channel.size() > Integer.MAX_VALUE) {
+                return rejected(file, "unexpected size " + channel.size());
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return rejected(file, "not a snapshot of this format");
+            }
+            int bodyLength = buffer.getInt();
+            long checksum = buffer.getLong();
+            if (bodyLength != channel.size() - HEADER_LENGTH) {
+                return rejected(file, "truncated");
+            }
+            ByteBuffer body = buffer.slice();
+            CRC32 crc32 = new CRC32();
+            crc32.update(body.duplicate());
+            if (crc32.getValue() != checksum) {
+                return rejected(file, "checksum mismatch");
+            }
+            return Optional.of(decode(body));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            return rejected(file, e.toString());
+        }
+    }
+
+    /**
+     * @param file Replaced atomically where the file system supports it.
+     */
+    public void write(Path file) throws IOException {
+        byte[] body = encode();
+        CRC32 crc32 = new CRC32();
+        crc32.update(body);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH)
+                .putInt(MAGIC)
+                .putInt(FORMAT_VERSION)
+                .putInt(body.length)
+                .putLong(crc32.getValue())
+                .flip();
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                channel.write(new ByteBuffer[]{header, ByteBuffer.wrap(body)});
+                channel.force(true);
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    public DatabaseFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    public List<Company> getCompanies() {
+        return companies;
+    }
+
+    public int getCarCount() {
+        return carIds.length;
+    }
+
+    /**
+     * @return Returns a new Availability Index holding the cars and rentals of the snapshot.
+     */
+    public AvailabilityIndex toAvailabilityIndex() {
+        AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+        for (int i = 0; i < carIds.length; i++) {
+            Car car = new Car(carNames[i], carCompanyIds[i]);
+            car.setId(carIds[i]);
+            availabilityIndex.addCar(car);
+        }
+        for (int i = 0; i < rentedCarIds.length; i++) {
+            availabilityIndex.markRented(rentedCarIds[i], renterIds[i]);
+        }
+        return availabilityIndex;
+    }
+
+    /**
+     * @param customerCount     Not part of the snapshot, so it is taken from the database fingerprint.
+     * @param maximumCustomerId Same as customerCount.
+     * @return Returns the fingerprint the snapshot's own contents add up to. A snapshot is only written when
+     * this matches the database, so its contents are known to be what the fingerprint describes.
+     */
+    public DatabaseFingerprint computeFingerprint(long customerCount, long maximumCustomerId) {
+        long rentalChecksum = 0;
+        for (int i = 0; i < rentedCarIds.length; i++) {
+            rentalChecksum += DatabaseFingerprint.rentalChecksumTerm(renterIds[i], rentedCarIds[i]);
+        }
+        return new DatabaseFingerprint(companies.size(),
+                companies.stream().mapToLong(Company::getId).max().orElse(0),
+                carIds.length, carIds.length == 0 ? 0 : carIds[carIds.length - 1],
+                customerCount, maximumCustomerId, rentedCarIds.length, rentalChecksum);
+    }
+
+    private byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + carIds.length * 24);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeLong(fingerprint.companyCount());
+            output.writeLong(fingerprint.maximumCompanyId());
+            output.writeLong(fingerprint.carCount());
+            output.writeLong(fingerprint.maximumCarId());
+            output.writeLong(fingerprint.customerCount());
+            output.writeLong(fingerprint.maximumCustomerId());
+            output.writeLong(fingerprint.rentalCount());
+            output.writeLong(fingerprint.rentalChecksum());
+
+            output.writeInt(companies.size());
+            for (Company company : companies) {
+                output.writeInt(company.getId());
+                writeString(output, company.getName());
+            }
+            output.writeInt(carIds.length);
+            for (int i = 0; i < carIds.length; i++) {
+                output.writeInt(carIds[i]);
+                output.writeInt(carCompanyIds[i]);
+                writeString(output, carNames[i]);
+            }
+            output.writeInt(rentedCarIds.length);
+            for (int i = 0; i < rentedCarIds.length; i++) {
+                output.writeInt(rentedCarIds[i]);
+                output.writeInt(renterIds[i]);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static WarmStartSnapshot decode(ByteBuffer body) {
+        DatabaseFingerprint fingerprint = new DatabaseFingerprint(body.getLong(), body.getLong(), body.getLong(),
+                body.getLong(), body.getLong(), body.getLong(), body.getLong(), body.getLong());
+
+        int companyCount = readCount(body, 8);
+        List<Company> companies = new ArrayList<>(companyCount);
+        for (int i = 0; i < companyCount; i++) {
+            int id = body.getInt();
+            Company company = new Company(readString(body));
+            company.setId(id);
+            companies.add(company);
+        }
+
+        int carCount = readCount(body, 12);
+        int[] carIds = new int[carCount];
+        int[] carCompanyIds = new int[carCount];
+        String[] carNames = new String[carCount];
+        for (int i = 0; i < carCount; i++) {
+            carIds[i] = body.getInt();
+            carCompanyIds[i] = body.getInt();
+            carNames[i] = readString(body);
+        }
+
+        int rentalCount = readCount(body, 8);
+        int[] rentedCarIds = new int[rentalCount];
+        int[] renterIds = new int[rentalCount];
+        for (int i = 0; i < rentalCount; i++) {
+            rentedCarIds[i] = body.getInt();
+            renterIds[i] = body.getInt();
+        }
+        if (body.hasRemaining()) {
+            throw new IllegalArgumentException(body.remaining() + " unexpected trailing bytes");
+        }
+        return new WarmStartSnapshot(fingerprint, List.copyOf(companies), carIds, carCompanyIds, carNames,
+                rentedCarIds, renterIds);
+    }
+
+    /*
+    A count is checked against the bytes left before arrays are allocated for it, so a damaged count
+    that still passed the checksum cannot ask for a huge allocation.
+     */
+    private static int readCount(ByteBuffer body, int minimumBytesPerEntry) {
+        int count = body.getInt();
+        if (count < 0 || (long) count * minimumBytesPerEntry > body.remaining()) {
+            throw new IllegalArgumentException("invalid count " + count);
+        }
+        return count;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(encoded.length);
+        output.write(encoded);
+    }
+
+    private static String readString(ByteBuffer body) {
+        int length = readCount(body, 1);
+        byte[] encoded = new byte[length];
+        body.get(encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    private static Optional<WarmStartSnapshot> rejected(Path file, String reason) {
+        logger.log(Level.WARNING, "Ignoring warm-start snapshot " + file + ": " + reason);
+        return Optional.empty();
+    }
+}
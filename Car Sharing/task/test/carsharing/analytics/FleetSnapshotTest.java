@@ -0,0 +1,170 @@
+package carsharing.analytics;
+
+import carsharing.dao.FleetSnapshotDao;
+import carsharing.daoimpl.FleetSnapshotDaoImpl;
+import carsharing.migration.SchemaMigrator;
+import carsharing.model.DatabaseFingerprint;
+import carsharing.service.DatabaseService;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FleetSnapshotTest {
+
+    @Test
+    public void refreshAppendsNewRowsAndReplacesTheRentedState() {
+        TableRows tables = new TableRows();
+        tables.addCompany(1, "Hertz");
+        tables.addCar(1, "Yaris", 1);
+        tables.addCar(2, "Corolla", 1);
+        tables.addCustomer(1, "Bob");
+        tables.rentedCarIds.add(1);
+        FleetSnapshot first = FleetSnapshot.load(tables);
+
+        tables.addCompany(2, "Avis");
+        tables.addCar(3, "Clio", 2);
+        tables.addCustomer(2, "Alice");
+        tables.rentedCarIds.clear();
+        tables.rentedCarIds.add(2);
+        tables.rentedCarIds.add(3);
+        FleetSnapshot second = first.refresh(tables);
+
+        assertEquals(2, second.getCompanyCount());
+        assertEquals(3, second.getCarCount());
+        assertEquals(2, second.getCustomerCount());
+        assertEquals("Avis", second.getCompanyName(2));
+        assertEquals("Clio", second.getCarName(3));
+        assertEquals("Alice", second.getCustomerName(2));
+        assertEquals(Map.of(1, 1, 2, 1), second.getRentedCarsPerCompany());
+        assertEquals(1, second.countIdleCars());
+        assertEquals(List.of(1, 2, 1), tables.afterIds.subList(3, 6));
+    }
+
+    @Test
+    public void refreshLeavesThePreviousSnapshotUnchanged() {
+        TableRows tables = new TableRows();
+        tables.addCompany(1, "Hertz");
+        tables.addCar(1, "Yaris", 1);
+        FleetSnapshot first = FleetSnapshot.load(tables);
+
+        tables.addCar(2, "Corolla", 1);
+        tables.rentedCarIds.add(1);
+        first.refresh(tables);
+
+        assertEquals(1, first.getCarCount());
+        assertEquals(0, first.getRentedCarCount());
+        assertNull(first.getCarName(2));
+    }
+
+    @Test
+    public void countsPerCompanyMatchTheDatabase() throws SQLException {
+        try (DatabaseService databaseService = new DatabaseService("jdbc:h2:mem:fleetSnapshotTest;DB_CLOSE_DELAY=-1")) {
+            new SchemaMigrator(databaseService).migrate();
+            try (Connection connection = databaseService.getConnection();
+                 Statement statement = connection.createStatement()) {
+                for (int company = 1; company <= 4; company++) {
+                    statement.execute("INSERT INTO COMPANY(NAME) VALUES('Company " + company + "')");
+                }
+                for (int car = 1; car <= 60; car++) {
+                    statement.execute("INSERT INTO CAR(NAME, COMPANY_ID) VALUES('Car " + car + "', " +
+                            (car % 3 + 1) + ")");
+                }
+                statement.execute("UPDATE CAR SET AVAILABLE = FALSE WHERE MOD(ID, 7) = 0");
+            }
+
+            FleetSnapshot snapshot = FleetSnapshot.load(new FleetSnapshotDaoImpl(databaseService));
+
+            assertEquals(countPerCompany(databaseService, ""), snapshot.getCarsPerCompany());
+            assertEquals(countPerCompany(databaseService, "AND CAR.AVAILABLE = FALSE"),
+                    snapshot.getRentedCarsPerCompany());
+            assertEquals(8.0 / 60, snapshot.getRentedRatio(), 1e-9);
+        }
+    }
+
+    private static Map<Integer, Integer> countPerCompany(DatabaseService databaseService, String condition)
+            throws SQLException {
+        Map<Integer, Integer> counts = new LinkedHashMap<>();
+        try (Connection connection = databaseService.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COMPANY.ID, COUNT(CAR.ID) FROM COMPANY " +
+                     "LEFT JOIN CAR ON CAR.COMPANY_ID = COMPANY.ID " + condition +
+                     " GROUP BY COMPANY.ID ORDER BY COMPANY.ID")) {
+            while (resultSet.next()) {
+                counts.put(resultSet.getInt(1), resultSet.getInt(2));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Rows held in lists, handed out after the given ID like the SQL implementation does.
+     */
+    private static final class TableRows implements FleetSnapshotDao {
+        private final List<Object[]> companies = new ArrayList<>();
+        private final List<Object[]> cars = new ArrayList<>();
+        private final List<Object[]> customers = new ArrayList<>();
+        private final Set<Integer> rentedCarIds = new HashSet<>();
+        private final List<Integer> afterIds = new ArrayList<>();
+
+        private void addCompany(int id, String name) {
+            companies.add(new Object[]{id, name});
+        }
+
+        private void addCar(int id, String name, int companyId) {
+            cars.add(new Object[]{id, name, companyId});
+        }
+
+        private void addCustomer(int id, String name) {
+            customers.add(new Object[]{id, name});
+        }
+
+        @Override
+        public boolean readCompanies(int afterId, NamedRowConsumer consumer) {
+            afterIds.add(afterId);
+            companies.stream().filter(row -> (int) row[0] > afterId)
+                    .forEach(row -> consumer.accept((int) row[0], (String) row[1]));
+            return true;
+        }
+
+        @Override
+        public boolean readCars(int afterId, CarRowConsumer consumer) {
+            afterIds.add(afterId);
+            cars.stream().filter(row -> (int) row[0] > afterId)
+                    .forEach(row -> consumer.accept((int) row[0], (String) row[1], (int) row[2]));
+            return true;
+        }
+
+        @Override
+        public boolean readCustomers(int afterId, NamedRowConsumer consumer) {
+            afterIds.add(afterId);
+            customers.stream().filter(row -> (int) row[0] > afterId)
+                    .forEach(row -> consumer.accept((int) row[0], (String) row[1]));
+            return true;
+        }
+
+        @Override
+        public boolean readRentedCarIds(IntConsumer consumer) {
+            rentedCarIds.forEach(consumer::accept);
+            return true;
+        }
+
+        @Override
+        public Optional<DatabaseFingerprint> getFingerprint() {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package carsharing.analytics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class NameDictionaryTest {
+
+    @Test
+    public void encodeGivesTheSameCodeForTheSameName() {
+        NameDictionary names = new NameDictionary();
+        int code = names.encode("Hyundai Venue");
+
+        assertEquals(code, names.encode("Hyundai Venue"));
+        assertNotEquals(code, names.encode("Maruti Suzuki Dzire"));
+        assertEquals(2, names.size());
+    }
+
+    @Test
+    public void decodeReturnsTheEncodedName() {
+        NameDictionary names = new NameDictionary();
+        String[] values = {"", "\u0160koda Octavia", "\u65e5\u672c\u4ea4\u901a", "Super company"};
+        int[] codes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            codes[i] = names.encode(values[i]);
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], names.decode(codes[i]));
+        }
+    }
+
+    @Test
+    public void codesSurviveGrowingTheTableAndTheByteArray() {
+        NameDictionary names = new NameDictionary();
+        int count = 20_000;
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, names.encode("Car model number " + i));
+        }
+
+        assertEquals(count, names.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, names.encode("Car model number " + i));
+            assertEquals("Car model number " + i, names.decode(i));
+        }
+    }
+
+    @Test
+    public void copyIsNotChangedByTheOriginal() {
+        NameDictionary names = new NameDictionary();
+        names.encode("First");
+        NameDictionary copy = names.copy();
+        names.encode("Second");
+
+        assertEquals(1, copy.size());
+        assertEquals(1, copy.encode("Second"));
+        assertEquals("Second", copy.decode(1));
+        assertEquals(2, names.size());
+    }
+}
@@ -0,0 +1,100 @@
+package carsharing.index;
+
+import carsharing.model.Car;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CarSearchIndexTest {
+    private static final int COMPANY_ID = 1;
+
+    @Test
+    public void prefixFindsTheCarsStartingWithIt() {
+        CarSearchIndex index = indexOf("Hyundai Venue", "Hyundai Creta", "Honda City");
+
+        assertEquals(List.of("Hyundai Creta", "Hyundai Venue"), search(index, "hyun", 10));
+    }
+
+    @Test
+    public void misspelledNameStillMatches() {
+        CarSearchIndex index = indexOf("Toyota Corolla", "Maruti Suzuki Dzire", "Honda City");
+
+        assertEquals(List.of("Toyota Corolla"), search(index, "Corola", 10));
+        assertEquals(List.of("Maruti Suzuki Dzire"), search(index, "suzki dzire", 10));
+    }
+
+    @Test
+    public void exactNameRanksBeforePrefixBeforeWordPrefix() {
+        CarSearchIndex index = indexOf("Hyundai Venue", "Venue Sport", "Venue");
+
+        assertEquals(List.of("Venue", "Venue Sport", "Hyundai Venue"), search(index, "venue", 10));
+    }
+
+    @Test
+    public void limitKeepsOnlyTheBestMatches() {
+        CarSearchIndex index = new CarSearchIndex();
+        for (int id = 1; id <= 30; id++) {
+            index.addCar(car(id, "Model " + id, COMPANY_ID));
+        }
+        index.addCar(car(31, "Model", COMPANY_ID));
+
+        List<String> names = search(index, "model", 5);
+
+        assertEquals(5, names.size());
+        assertEquals("Model", names.get(0));
+    }
+
+    @Test
+    public void onlyCarsOfTheCompanyThatPassTheFilterAreReturned() {
+        CarSearchIndex index = new CarSearchIndex();
+        index.addCar(car(1, "Yaris", COMPANY_ID));
+        index.addCar(car(2, "Yaris Cross", COMPANY_ID));
+        index.addCar(car(3, "Yaris GR", 2));
+
+        List<Car> cars = index.search("yaris", COMPANY_ID, carId -> carId != 1, 10);
+
+        assertEquals(List.of(2), cars.stream().map(Car::getId).collect(Collectors.toList()));
+        assertEquals(COMPANY_ID, cars.get(0).getCompanyId());
+    }
+
+    @Test
+    public void blankQueryAndUnknownWordsReturnNothing() {
+        CarSearchIndex index = indexOf("Hyundai Venue");
+
+        assertTrue(search(index, "   ", 10).isEmpty());
+        assertTrue(search(index, "zzzz", 10).isEmpty());
+    }
+
+    @Test
+    public void addingACarTwiceIndexesItOnce() {
+        CarSearchIndex index = indexOf("Hyundai Venue");
+        index.addCar(car(1, "Hyundai Venue", COMPANY_ID));
+
+        assertEquals(1, index.size());
+        assertEquals(List.of("Hyundai Venue"), search(index, "venue", 10));
+    }
+
+    private static CarSearchIndex indexOf(String... names) {
+        CarSearchIndex index = new CarSearchIndex();
+        for (int i = 0; i < names.length; i++) {
+            index.addCar(car(i + 1, names[i], COMPANY_ID));
+        }
+        return index;
+    }
+
+    private static List<String> search(CarSearchIndex index, String query, int limit) {
+        return index.search(query, COMPANY_ID, carId -> true, limit).stream()
+                .map(Car::getName)
+                .collect(Collectors.toList());
+    }
+
+    private static Car car(int id, String name, int companyId) {
+        Car car = new Car(name, companyId);
+        car.setId(id);
+        return car;
+    }
+}
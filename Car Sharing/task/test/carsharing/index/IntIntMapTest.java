@@ -0,0 +1,121 @@
+package carsharing.index;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class IntIntMapTest {
+
+    @Test
+    public void missingKeysReturnZero() {
+        IntIntMap map = new IntIntMap(4);
+        map.put(7, 70);
+
+        assertEquals(70, map.get(7));
+        assertEquals(0, map.get(8));
+    }
+
+    @Test
+    public void putReplacesTheValueOfAnExistingKey() {
+        IntIntMap map = new IntIntMap(4);
+        map.put(7, 70);
+        map.put(7, 71);
+
+        assertEquals(71, map.get(7));
+        assertEquals(1, map.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void keysMustBePositive() {
+        new IntIntMap(4).put(0, 1);
+    }
+
+    /*
+    Four keys with the same home slot and two with the slot after it form one cluster, the last two
+    probed past their home. Removing any one of them must shift the keys behind it back, so every key
+    left is found again. The home slots are worked out with the map's own hash.
+     */
+    @Test
+    public void removeKeepsTheRestOfTheClusterReachable() {
+        int capacity = 32;
+        int[] cluster = new int[6];
+        int found = 0;
+        for (int key = 1; found < cluster.length; key++) {
+            int home = homeSlot(key, capacity);
+            if (home == 5 && found < 4 || home == 6 && found >= 4) {
+                cluster[found++] = key;
+            }
+        }
+
+        for (int removed : cluster) {
+            IntIntMap map = new IntIntMap(capacity / 2);
+            for (int key : cluster) {
+                map.put(key, key + 1);
+            }
+
+            map.remove(removed);
+
+            assertEquals(cluster.length - 1, map.size());
+            assertEquals(0, map.get(removed));
+            for (int key : cluster) {
+                if (key != removed) {
+                    assertEquals(key + 1, map.get(key));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void removingAMissingKeyChangesNothing() {
+        IntIntMap map = new IntIntMap(4);
+        map.put(3, 30);
+        map.remove(4);
+
+        assertEquals(1, map.size());
+        assertEquals(30, map.get(3));
+    }
+
+    @Test
+    public void matchesAHashMapOverRandomPutsAndRemoves() {
+        Random random = new Random(42);
+        IntIntMap map = new IntIntMap(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(2_000) + 1;
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                int value = random.nextInt(1_000) + 1;
+                map.put(key, value);
+                expected.put(key, value);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = 1; key <= 2_000; key++) {
+            assertEquals(expected.getOrDefault(key, 0).intValue(), map.get(key));
+        }
+    }
+
+    @Test
+    public void clearEmptiesTheMap() {
+        IntIntMap map = new IntIntMap(4);
+        map.put(1, 10);
+        map.put(2, 20);
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertEquals(0, map.get(1));
+    }
+
+    private static int homeSlot(int key, int capacity) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (capacity - 1);
+    }
+}
@@ -0,0 +1,140 @@
+package carsharing.snapshot;
+
+import carsharing.index.AvailabilityIndex;
+import carsharing.model.Car;
+import carsharing.model.Company;
+import carsharing.model.DatabaseFingerprint;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WarmStartSnapshotTest {
+    private static final int HEADER_LENGTH = 20;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readReturnsWhatWasWritten() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("warm-start.bin");
+        WarmStartSnapshot written = snapshot();
+        written.write(file);
+
+        Optional<WarmStartSnapshot> read = WarmStartSnapshot.read(file);
+
+        assertTrue(read.isPresent());
+        assertEquals(written.getFingerprint(), read.get().getFingerprint());
+        assertEquals(List.of("1 Hertz", "2 \u00c5vis"), read.get().getCompanies().stream()
+                .map(company -> company.getId() + " " + company.getName())
+                .collect(Collectors.toList()));
+        assertEquals(3, read.get().getCarCount());
+
+        AvailabilityIndex index = read.get().toAvailabilityIndex();
+        assertEquals(List.of("Yaris"), index.getFreeCars(1).stream().map(Car::getName).collect(Collectors.toList()));
+        assertEquals(7, index.getRenter(2));
+        assertTrue(index.isFree(3));
+        assertEquals(2, index.getCompanyId(3));
+        assertEquals(written.getFingerprint(), read.get().computeFingerprint(5, 9));
+    }
+
+    @Test
+    public void writeReplacesTheOldFileAndLeavesNoTemporaryFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("warm-start.bin");
+        Files.write(file, new byte[]{1, 2, 3});
+
+        snapshot().write(file);
+
+        assertTrue(WarmStartSnapshot.read(file).isPresent());
+        assertArrayEquals(new String[]{"warm-start.bin"}, folder.getRoot().list());
+    }
+
+    @Test
+    public void aChangedByteIsCaughtByTheChecksum() throws IOException {
+        Path file = writtenSnapshot();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[HEADER_LENGTH + 70] ^= 0x01;
+        Files.write(file, bytes);
+
+        assertFalse(WarmStartSnapshot.read(file).isPresent());
+    }
+
+    @Test
+    public void aTruncatedFileIsIgnored() throws IOException {
+        Path file = writtenSnapshot();
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+
+        assertFalse(WarmStartSnapshot.read(file).isPresent());
+    }
+
+    @Test
+    public void aFileOfAnotherFormatIsIgnored() throws IOException {
+        Path file = writtenSnapshot();
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(4, 2);
+        Files.write(file, bytes);
+
+        assertFalse(WarmStartSnapshot.read(file).isPresent());
+
+        Files.write(file, new byte[]{1, 2, 3});
+        assertFalse(WarmStartSnapshot.read(file).isPresent());
+    }
+
+    @Test
+    public void aMissingFileIsNoSnapshot() {
+        File missing = new File(folder.getRoot(), "missing.bin");
+
+        assertFalse(WarmStartSnapshot.read(missing.toPath()).isPresent());
+    }
+
+    private Path writtenSnapshot() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("warm-start.bin");
+        snapshot().write(file);
+        return file;
+    }
+
+    /*
+    Two companies, three cars and one rental. The fingerprint is the one the contents add up to,
+    with 5 customers and 9 as the highest customer ID.
+     */
+    private static WarmStartSnapshot snapshot() {
+        AvailabilityIndex index = new AvailabilityIndex();
+        index.addCar(car(1, "Yaris", 1));
+        index.addCar(car(2, "Corolla", 1));
+        index.addCar(car(3, "Clio", 2));
+        index.markRented(2, 7);
+        List<Company> companies = List.of(company(1, "Hertz"), company(2, "\u00c5vis"));
+
+        DatabaseFingerprint placeholder = new DatabaseFingerprint(0, 0, 0, 0, 0, 0, 0, 0);
+        DatabaseFingerprint fingerprint = WarmStartSnapshot.of(placeholder, companies, index)
+                .computeFingerprint(5, 9);
+        return WarmStartSnapshot.of(fingerprint, companies, index);
+    }
+
+    private static Car car(int id, String name, int companyId) {
+        Car car = new Car(name, companyId);
+        car.setId(id);
+        return car;
+    }
+
+    private static Company company(int id, String name) {
+        Company company = new Company(name);
+        company.setId(id);
+        return company;
+    }
+}